@@ -0,0 +1,163 @@
+import java.time.Duration;
+
+/**
+ * Entry points into the solver used by the benchmarks.
+ * JMH only accepts benchmarks in a named package, which cannot refer to the classes of the solver
+ * in the unnamed package, the benchmarks therefore call these methods through method handles.
+ * The values are passed as Object and cast back here.
+ */
+public class BenchmarkSupport {
+
+	static {
+		Progress.setEnabled(false);
+	}
+
+	/**
+	 * Private constructor, the class only holds static methods.
+	 */
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * @param s, tile IDs as accepted by the -s tag.
+	 * @return GameState
+	 */
+	public static Object state(String s) {
+		GameState gs = MainBody.parseState(s, 0);
+		if(gs == null) throw new IllegalArgumentException("Not a puzzle configuration: "+s);
+		return gs;
+	}
+
+	/**
+	 * @param gs, GameState
+	 * @return GameState of the same size with the tiles ordered with the blank tile first.
+	 */
+	public static Object orderedTarget(Object gs) {
+		BoardSize size = ((GameState) gs).getSize();
+		int[] ordered = new int[size.cells];
+		for(int i = 0; i<ordered.length; i++) ordered[i] = i;
+		return new GameState(size, ordered);
+	}
+
+	/**
+	 * Move the blank tile of a copy of the configuration.
+	 * @param gs, GameState
+	 * @param direction, 0 down, 1 left, 2 right, 3 up.
+	 * @return the moved copy, null if the blank tile would leave the grid.
+	 */
+	public static Object move(Object gs, int direction) {
+		GameState child = ((GameState) gs).clone();
+		try {
+			switch(direction) {
+			case 0: child.moveDown(); break;
+			case 1: child.moveLeft(); break;
+			case 2: child.moveRight(); break;
+			default: child.moveUp(); break;
+			}
+		} catch(CannotExecuteException e) {
+			return null;
+		}
+		return child;
+	}
+
+	/**
+	 * @param a, GameState
+	 * @param b, GameState
+	 * @return true if the configurations are equal.
+	 */
+	public static boolean equal(Object a, Object b) {
+		return a.equals(b);
+	}
+
+	/**
+	 * @param gs, GameState
+	 * @param tile
+	 * @return Location of the tile.
+	 */
+	public static Object tileLocation(Object gs, int tile) {
+		return ((GameState) gs).getTileLocation(tile);
+	}
+
+	/**
+	 * Create a heuristic.
+	 * @param name, one of trivial, euclid-blank, manhattan-blank, euclid, manhattan, pdb, exact or linear-conflict.
+	 * @return HeuristicMethod
+	 */
+	public static Object heuristic(String name) {
+		switch(name) {
+		case "trivial": return (HeuristicMethod) (GameState g, GameState t) -> 0;
+		case "euclid-blank": return new TileDistanceHeuristic(true, true);
+		case "manhattan-blank": return new TileDistanceHeuristic(false, true);
+		case "euclid": return new TileDistanceHeuristic(true, false);
+		case "manhattan": return new TileDistanceHeuristic(false, false);
+		case "pdb": return new PatternDatabaseHeuristic();
+		case "exact": return new OracleHeuristic();
+		case "linear-conflict": return new LinearConflictHeuristic();
+		default: throw new IllegalArgumentException("Unknown heuristic "+name);
+		}
+	}
+
+	/**
+	 * @param h, HeuristicMethod
+	 * @param gs, GameState
+	 * @param target, GameState
+	 * @return the estimate of the heuristic.
+	 */
+	public static double compare(Object h, Object gs, Object target) {
+		return ((HeuristicMethod) h).compare((GameState) gs, (GameState) target);
+	}
+
+	/**
+	 * @param gs, GameState
+	 * @param target, GameState
+	 * @param h, HeuristicMethod
+	 * @return GameStateNode, root of a search.
+	 */
+	public static Object node(Object gs, Object target, Object h) {
+		return new GameStateNode((GameState) gs, (GameState) target, (HeuristicMethod) h);
+	}
+
+	/**
+	 * @param node, GameStateNode
+	 * @return number of the children created.
+	 */
+	public static int makeChildren(Object node) {
+		return ((GameStateNode) node).makeChildren();
+	}
+
+	/**
+	 * Create a search the way the -m and -h tags do.
+	 * @param mode, one of astar, idastar, bidirectional, parallel, weighted, anytime or oracle.
+	 * @param heuristic, a name accepted by heuristic().
+	 * @param start, GameState
+	 * @param target, GameState
+	 * @param depthLimit
+	 * @return SearchEngine
+	 */
+	public static Object engine(String mode, String heuristic, Object start, Object target, int depthLimit) {
+		Approach appr = new Approach(() -> (HeuristicMethod) heuristic(heuristic), heuristic, !heuristic.startsWith("euclid"));
+		GameStateNode root = new GameStateNode((GameState) start, (GameState) target, appr.hm.get());
+		SearchSettings settings = new SearchSettings(mode, depthLimit, Runtime.getRuntime().availableProcessors(), 2, Duration.ofSeconds(1));
+		return MainBody.createEngine(settings, root, appr);
+	}
+
+	/**
+	 * Run a search.
+	 * @param engine, SearchEngine
+	 * @return length of the solution, -1 if none was found.
+	 */
+	public static int run(Object engine) {
+		SearchEngine se = (SearchEngine) engine;
+		se.run();
+		return se.getSolution() == null ? -1 : se.getSolution().getSteps();
+	}
+
+	/**
+	 * @param engine, SearchEngine
+	 * @return number of nodes expanded, -1 for searches without statistics.
+	 */
+	public static long expanded(Object engine) {
+		SearchStatistics stats = ((SearchEngine) engine).getStatistics();
+		return stats == null ? -1 : stats.getExpanded();
+	}
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks of a full evaluation of every heuristic, as done for the root of a search.
+ * The tables of the pattern databases and the exact distances are prepared in the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+	@Param({"trivial", "euclid-blank", "manhattan-blank", "euclid", "manhattan", "pdb", "exact", "linear-conflict"})
+	public String heuristic;
+
+	private Object h;
+	private Object gs;
+	private Object target;
+
+	@Setup
+	public void setup() {
+		h = Solver.heuristic(heuristic);
+		gs = Solver.state("724506831");
+		target = Solver.orderedTarget(gs);
+		Solver.compare(h, gs, target);
+	}
+
+	@Benchmark
+	public double compare() {
+		return Solver.compare(h, gs, target);
+	}
+}
@@ -0,0 +1,94 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Macro benchmarks solving the puzzles of corpus.txt end to end, grouped by the length of their optimal solution.
+ * One invocation solves every puzzle of the group with a fresh search, as a run of MainBody does.
+ * Run with "-prof gc" for the allocation rate, the nodes expanded are reported as a secondary result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+	@Param({"12", "16", "20", "24", "28"})
+	public int length;
+
+	@Param({"astar", "idastar"})
+	public String mode;
+
+	@Param({"manhattan", "linear-conflict", "pdb"})
+	public String heuristic;
+
+	private List<Object> starts;
+	private Object target;
+
+	/**
+	 * Counters reported next to the time of every iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long expanded;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			expanded = 0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		starts = new ArrayList<Object>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				SolveBenchmark.class.getResourceAsStream("/corpus.txt"), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = in.readLine()) != null) {
+				String[] parts = line.trim().split("\\s+");
+				if(parts.length == 2 && Integer.parseInt(parts[0]) == length) starts.add(Solver.state(parts[1]));
+			}
+		}
+		if(starts.isEmpty()) throw new IllegalStateException("No puzzle of length "+length+" in the corpus.");
+		target = Solver.orderedTarget(starts.get(0));
+		// prepares the tables of the heuristic
+		Solver.compare(Solver.heuristic(heuristic), starts.get(0), target);
+	}
+
+	@Benchmark
+	public int solve(Counters counters) {
+		int total = 0;
+		for(Object start:starts) {
+			Object engine = Solver.engine(mode, heuristic, start, target, length);
+			int found = Solver.run(engine);
+			if(found != length) throw new IllegalStateException("Expected a solution of length "+length+", found "+found+".");
+			total += found;
+			long expanded = Solver.expanded(engine);
+			if(expanded > 0) counters.expanded += expanded;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,141 @@
+package bench;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Calls into BenchmarkSupport, which lives in the unnamed package of the solver.
+ * The method handles are constants, so the JIT compiles the calls like direct ones.
+ */
+final class Solver {
+
+	private static final MethodHandle STATE = find("state", methodType(Object.class, String.class));
+	private static final MethodHandle ORDERED_TARGET = find("orderedTarget", methodType(Object.class, Object.class));
+	private static final MethodHandle MOVE = find("move", methodType(Object.class, Object.class, int.class));
+	private static final MethodHandle EQUAL = find("equal", methodType(boolean.class, Object.class, Object.class));
+	private static final MethodHandle TILE_LOCATION = find("tileLocation", methodType(Object.class, Object.class, int.class));
+	private static final MethodHandle HEURISTIC = find("heuristic", methodType(Object.class, String.class));
+	private static final MethodHandle COMPARE = find("compare", methodType(double.class, Object.class, Object.class, Object.class));
+	private static final MethodHandle NODE = find("node", methodType(Object.class, Object.class, Object.class, Object.class));
+	private static final MethodHandle MAKE_CHILDREN = find("makeChildren", methodType(int.class, Object.class));
+	private static final MethodHandle ENGINE = find("engine", methodType(Object.class, String.class, String.class, Object.class, Object.class, int.class));
+	private static final MethodHandle RUN = find("run", methodType(int.class, Object.class));
+	private static final MethodHandle EXPANDED = find("expanded", methodType(long.class, Object.class));
+
+	private Solver() {
+	}
+
+	private static MethodHandle find(String name, MethodType type) {
+		try {
+			Class<?> support = Class.forName("BenchmarkSupport");
+			return MethodHandles.publicLookup().findStatic(support, name, type);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable e) {
+		if(e instanceof RuntimeException) return (RuntimeException) e;
+		if(e instanceof Error) throw (Error) e;
+		return new RuntimeException(e);
+	}
+
+	static Object state(String s) {
+		try {
+			return (Object) STATE.invokeExact(s);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object orderedTarget(Object gs) {
+		try {
+			return (Object) ORDERED_TARGET.invokeExact(gs);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object move(Object gs, int direction) {
+		try {
+			return (Object) MOVE.invokeExact(gs, direction);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static boolean equal(Object a, Object b) {
+		try {
+			return (boolean) EQUAL.invokeExact(a, b);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object tileLocation(Object gs, int tile) {
+		try {
+			return (Object) TILE_LOCATION.invokeExact(gs, tile);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object heuristic(String name) {
+		try {
+			return (Object) HEURISTIC.invokeExact(name);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static double compare(Object h, Object gs, Object target) {
+		try {
+			return (double) COMPARE.invokeExact(h, gs, target);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object node(Object gs, Object target, Object h) {
+		try {
+			return (Object) NODE.invokeExact(gs, target, h);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static int makeChildren(Object node) {
+		try {
+			return (int) MAKE_CHILDREN.invokeExact(node);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static Object engine(String mode, String heuristic, Object start, Object target, int depthLimit) {
+		try {
+			return (Object) ENGINE.invokeExact(mode, heuristic, start, target, depthLimit);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static int run(Object engine) {
+		try {
+			return (int) RUN.invokeExact(engine);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	static long expanded(Object engine) {
+		try {
+			return (long) EXPANDED.invokeExact(engine);
+		} catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks of the operations on a single configuration.
+ * The blank tile sits in the centre of the 3x3 board or in its top left corner,
+ * where two of the four moves leave the grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateBenchmark {
+
+	@Param({"724506831", "072456831", "5,1,2,3,4,6,7,0,9,10,11,8,12,13,14,15"})
+	public String board;
+
+	private Object gs;
+	private Object copy;
+	private Object other;
+	private Object node;
+
+	@Setup
+	public void setup() {
+		gs = Solver.state(board);
+		copy = Solver.state(board);
+		other = Solver.orderedTarget(gs);
+		node = Solver.node(gs, other, Solver.heuristic("manhattan"));
+	}
+
+	@Benchmark
+	public Object moveDown() {
+		return Solver.move(gs, 0);
+	}
+
+	@Benchmark
+	public Object moveLeft() {
+		return Solver.move(gs, 1);
+	}
+
+	@Benchmark
+	public Object moveRight() {
+		return Solver.move(gs, 2);
+	}
+
+	@Benchmark
+	public Object moveUp() {
+		return Solver.move(gs, 3);
+	}
+
+	@Benchmark
+	public int makeChildren() {
+		return Solver.makeChildren(node);
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		return Solver.equal(gs, copy);
+	}
+
+	@Benchmark
+	public boolean equalsDifferent() {
+		return Solver.equal(gs, other);
+	}
+
+	@Benchmark
+	public Object getTileLocation() {
+		return Solver.tileLocation(gs, 5);
+	}
+}
@@ -0,0 +1,280 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * An instances of this class represent an anytime attempt to solve a specific 8-puzzle,
+ * following anytime repairing A* (ARA*).
+ *
+ * A weighted A* search finds a first solution quickly, the weight is then lowered step by step
+ * and the search resumes, reusing the nodes reached so far, to find better solutions.
+ * Nodes reached by a shorter path after they were expanded in the current round are kept aside
+ * and only expanded in the next round, so that every round expands a configuration at most once.
+ * Every solution comes with a proven bound on how many times longer it may be than an optimal one.
+ * The search stops when the weight reaches 1, which makes the last solution optimal, or at a deadline.
+ *
+ * The best solution found so far can be read from another thread at any moment.
+ * Can be ran as a thread.
+ */
+public class AnytimeSearch implements SearchEngine {
+
+	/**
+	 * Amount by which the weight is lowered after every round.
+	 */
+	private static final double WEIGHT_STEP = 0.5;
+
+	/**
+	 * Number of expansions between two checks of the clock.
+	 */
+	private static final int CLOCK_INTERVAL = 1024;
+
+	/**
+	 * A solution with its bound, published to other threads as a whole.
+	 */
+	private static class Result {
+		final GameState[] path;
+		final double bound;
+		GameStateNode solution;
+
+		Result(GameState[] path, double bound) {
+			this.path = path;
+			this.bound = bound;
+		}
+	}
+
+	private GameStateNode root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private IncrementalHeuristic incremental;
+	private String name;
+	private int depthLimit;
+	private double initialWeight;
+	private Duration deadline;
+
+	private NodeArena arena;
+	private IndexHeapOpenList open;
+	private ClosedSet reached;
+	private ClosedSet expanded;
+	// nodes reached by a shorter path after their configuration was expanded in the current round
+	private int[] incons;
+	private int inconsSize;
+	private int goal;
+	private long deadlineNanos;
+
+	private volatile Result best;
+	private SearchStatistics stats;
+	private Budget budget;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used, which must be admissible.
+	 * @param name
+	 * @param depthLimit, longest solution to be looked for.
+	 * @param weight, of the value of the heuristic in the first round, at least 1.
+	 * @param deadline, time after which the search stops, measured from the start.
+	 */
+	AnytimeSearch(GameStateNode initialState, String name, int depthLimit, double weight, Duration deadline){
+		this.root = initialState;
+		this.target = initialState.getTarget();
+		this.heuristic = initialState.getHeuristic();
+		if(heuristic instanceof IncrementalHeuristic) incremental = (IncrementalHeuristic) heuristic;
+		this.name = name;
+		this.depthLimit = depthLimit;
+		this.initialWeight = Math.max(1, weight);
+		this.deadline = deadline;
+		best = null;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+		stats.start();
+		budget.start();
+		deadlineNanos = System.nanoTime() + deadline.toNanos();
+
+		GameState gs = root.getGameState();
+		arena = new NodeArena(gs.getSize());
+		reached = new ClosedSet();
+		expanded = new ClosedSet();
+		incons = new int[64];
+		inconsSize = 0;
+		double weight = initialWeight;
+		open = new IndexHeapOpenList(arena, weight);
+		int r = arena.add(gs.getPacked(), gs.getPackedHigh(), gs.getBlankIndex(), NodeArena.NONE,
+				0, root.getDistance()-root.getSteps(), -1);
+		reached.offer(gs.getPacked(), gs.getPackedHigh(), 0);
+		goal = gs.equals(target) ? r : -1;
+		if(goal < 0) open.add(r);
+
+		while(true) {
+			boolean finished = improvePath();
+			if(goal >= 0) publish(finished ? weight : Double.POSITIVE_INFINITY);
+			if(!finished || weight == 1) break;
+			weight = Math.max(1, weight-WEIGHT_STEP);
+			for(int k = 0; k<inconsSize; k++) open.add(incons[k]);
+			inconsSize = 0;
+			open.setWeight(weight);
+			expanded.clear();
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		Result result = best;
+		stats.finish(result == null ? -1 : result.path.length-1);
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Expand the nodes until none of them may lead to a solution better than the one found.
+	 * @return false if the deadline passed first, or the search was cancelled or ran over its budget.
+	 */
+	private boolean improvePath() {
+		GameState board = root.getGameState().clone();
+		Successors successors = new Successors();
+		int count = 0;
+		while(!open.isEmpty()) {
+			int node = open.peek();
+			if(goal >= 0 && open.priority(node) >= arena.g(goal)) break;
+			open.poll();
+			if(++count % CLOCK_INTERVAL == 0 && (System.nanoTime() > deadlineNanos || budget.exceeded(stats.getExpanded(), bytes()))) return false;
+
+			long packed = arena.packed(node);
+			long packedHigh = arena.packedHigh(node);
+			int g = arena.g(node);
+			// a shorter path to this configuration was found after it had been queued
+			if(reached.get(packed, packedHigh) < g) {
+				stats.duplicate();
+				continue;
+			}
+			if(g >= depthLimit) continue;
+			expanded.offer(packed, packedHigh, g);
+
+			int blank = arena.blank(node);
+			double h = arena.h(node);
+			stats.expanded(g+h);
+			board.set(packed, packedHigh, blank);
+			board.successors(arena.lastMove(node), successors);
+			stats.generated(successors.count);
+			for(int k = 0; k<successors.count; k++) {
+				long childPacked = successors.packed[k];
+				long childPackedHigh = successors.packedHigh[k];
+				if(!reached.offer(childPacked, childPackedHigh, g+1)) {
+					stats.duplicate();
+					continue;
+				}
+				int cell = successors.blank[k];
+				board.set(childPacked, childPackedHigh, cell);
+				int child = arena.add(childPacked, childPackedHigh, cell, node, g+1, measure(board, h, blank), successors.move[k]);
+				if(childPacked == target.getPacked() && childPackedHigh == target.getPackedHigh()) {
+					goal = child;
+				} else if(expanded.get(childPacked, childPackedHigh) != ClosedSet.ABSENT) {
+					if(inconsSize == incons.length) incons = Arrays.copyOf(incons, inconsSize*2);
+					incons[inconsSize++] = child;
+				} else {
+					open.add(child);
+				}
+			}
+			stats.open(open.size());
+		}
+		return true;
+	}
+
+	/**
+	 * Value of the heuristic for the board after a move.
+	 * @param board
+	 * @param parentValue, value before the move.
+	 * @param parentBlank, cell of the blank tile before the move.
+	 * @return double
+	 */
+	private double measure(GameState board, double parentValue, int parentBlank) {
+		if(incremental == null) return heuristic.compare(board, target);
+		int tile = board.tileAt(parentBlank);
+		return incremental.update(parentValue, tile, board.getBlankIndex(), parentBlank, target);
+	}
+
+	/**
+	 * @return estimated memory of the nodes, the tables and the lists, in bytes.
+	 */
+	private long bytes() {
+		return arena.bytes() + reached.bytes() + expanded.bytes() + 4L*(open.size()+incons.length);
+	}
+
+	/**
+	 * Publish the goal node as the best solution.
+	 * The length of an optimal solution is at least the lowest g+h of the nodes left to expand.
+	 * @param weight, the weight of the finished round, which bounds the solution as well.
+	 */
+	private void publish(double weight) {
+		int length = arena.g(goal);
+		double lowest = Double.POSITIVE_INFINITY;
+		for(int k = 0; k<open.size(); k++) lowest = Math.min(lowest, arena.f(open.get(k)));
+		for(int k = 0; k<inconsSize; k++) lowest = Math.min(lowest, arena.f(incons[k]));
+		double bound = Math.max(1, Math.min(weight, length/lowest));
+		if(lowest >= length) bound = 1;
+		Result previous = best;
+		if(previous != null && previous.path.length-1 == length && previous.bound <= bound) return;
+
+		GameState[] path = new GameState[length+1];
+		BoardSize size = root.getGameState().getSize();
+		for(int i = goal, k = length; k >= 0; i = arena.parent(i), k--) {
+			path[k] = new GameState(size, arena.packed(i), arena.packedHigh(i), arena.blank(i));
+		}
+		best = new Result(path, bound);
+		Progress.report(name, "found a solution of "+length+" moves, at most "+String.format("%.2f", bound)+" times the optimal length.");
+	}
+
+	/**
+	 * May be called while the search runs.
+	 * @return a node identical to the target state, the end of the best solution found so far.
+	 */
+	public GameStateNode getSolution() {
+		Result result = best;
+		if(result == null) return null;
+		synchronized(result) {
+			if(result.solution == null) {
+				GameStateNode node = new GameStateNode(result.path[0], target, heuristic);
+				for(int k = 1; k<result.path.length; k++) {
+					node = new GameStateNode(node, result.path[k], heuristic);
+				}
+				result.solution = node;
+			}
+			return result.solution;
+		}
+	}
+
+	/**
+	 * May be called while the search runs.
+	 * @return the bound of the best solution found so far, infinite if there is none.
+	 */
+	public double getBound() {
+		Result result = best;
+		return result == null ? Double.POSITIVE_INFINITY : result.bound;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+
+	/**
+	 * A stopped search keeps the best solution found so far.
+	 * @param budget
+	 */
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+}
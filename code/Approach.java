@@ -0,0 +1,41 @@
+import java.util.function.Supplier;
+
+/**
+ * Class for binding an Heuristic function with a name.
+ */
+class Approach {
+	Supplier<HeuristicMethod> hm;
+	Supplier<HeuristicMethod> backward;
+	String name;
+	boolean integral;
+	boolean tables;
+	boolean threeByThree;
+
+	/**
+	 * Constructor of an approach whose heuristic is cheap to prepare for any target.
+	 * @param hm, creates a new instance of the heuristic.
+	 * @param name
+	 * @param integral, true if the heuristic returns whole numbers only.
+	 */
+	Approach (Supplier<HeuristicMethod> hm, String name, boolean integral){
+		this(hm, name, integral, false, false);
+	}
+	/**
+	 * Constructor.
+	 * A heuristic building tables for every target is not used by the backward half of a bidirectional
+	 * search, whose target is the initial state of the puzzle, the Manhattan distance is used instead.
+	 * @param hm, creates a new instance of the heuristic.
+	 * @param name
+	 * @param integral, true if the heuristic returns whole numbers only.
+	 * @param tables, true if the heuristic builds tables for every target.
+	 * @param threeByThree, true if the heuristic only measures 3x3 boards.
+	 */
+	Approach (Supplier<HeuristicMethod> hm, String name, boolean integral, boolean tables, boolean threeByThree){
+		this.hm = hm;
+		this.name = name;
+		this.integral = integral;
+		this.tables = tables;
+		this.threeByThree = threeByThree;
+		this.backward = tables ? () -> new TileDistanceHeuristic(false, false) : hm;
+	}
+}
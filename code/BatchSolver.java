@@ -0,0 +1,169 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves many puzzles in one run, read one per line from a file or the standard input.
+ *
+ * A line holds the initial configuration, optionally followed by the target configuration,
+ * separated by a semicolon or, if neither contains spaces, by a space. The tiles are ordered
+ * with the blank tile first when the target is missing.
+ *
+ * The puzzles are solved on a ForkJoinPool, each by a single thread, and every worker thread keeps
+ * its own instance of the heuristic, so that tables prepared for a target are reused by later puzzles.
+ * At most a few puzzles per worker are read ahead of the ones being solved.
+ * A result is written as soon as it is found, results may therefore come out of order:
+ * "<line number> <length of the solution> <duration in milliseconds> <moves>", the moves of the blank tile
+ * being a string of U, D, L and R, the length being -1 and the moves missing when no solution was found
+ * within the depth limit, and "invalid" following the line number when the line is not a puzzle.
+ * The results are handed to a ReportWriter, so the workers never wait for the output.
+ * A puzzle rejected by Rejection.check() gives "<line number> rejected <reason>",
+ * a search stopped by its budget without a solution gives "<line number> stopped <reason>".
+ */
+public class BatchSolver {
+
+	/**
+	 * Number of puzzles per worker which may be read ahead.
+	 */
+	private static final int QUEUED_PER_WORKER = 4;
+
+	private SearchSettings settings;
+	private Approach appr;
+	private int width;
+	private int workers;
+
+	private ThreadLocal<HeuristicMethod> heuristics;
+	private ThreadLocal<HeuristicMethod> backwardHeuristics;
+	private boolean onlyThreeByThree;
+
+	private SolutionCache cache;
+
+	private ReportWriter out;
+	private Path outFile;
+
+	/**
+	 * Constructor.
+	 * A parallel search of a single puzzle would compete with the other puzzles for the threads,
+	 * the puzzles are therefore solved by A* in the parallel mode.
+	 * @param settings, the mode of the searches, the number of threads being the number of puzzles solved at the same time.
+	 * @param appr, the approach used to solve every puzzle, null for the oracle.
+	 * @param width, number of columns, 0 for square boards.
+	 * @param cache, shared by the workers, null to solve every puzzle.
+	 */
+	BatchSolver(SearchSettings settings, Approach appr, int width, SolutionCache cache){
+		String mode = settings.mode.equals("parallel") ? "astar" : settings.mode;
+		this.settings = settings.with(mode, 1);
+		this.appr = appr;
+		this.width = width;
+		this.workers = settings.workers;
+		this.cache = cache;
+		if(appr != null) {
+			heuristics = ThreadLocal.withInitial(appr.hm);
+			backwardHeuristics = ThreadLocal.withInitial(appr.backward);
+		}
+		onlyThreeByThree = mode.equals("oracle") || appr.threeByThree;
+	}
+
+	/**
+	 * Solve every puzzle of the input and write the results.
+	 * @param input, name of the file with the puzzles, "-" for the standard input.
+	 * @param output, name of the file for the results, null for the standard output.
+	 */
+	void solve(String input, String output) {
+		Progress.setEnabled(false);
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		Semaphore queued = new Semaphore(workers*QUEUED_PER_WORKER);
+		out = new ReportWriter();
+		outFile = output == null ? null : Paths.get(output);
+		try (BufferedReader in = new BufferedReader(input.equals("-") ? new InputStreamReader(System.in) : new FileReader(input))) {
+			String line;
+			int index = 0;
+			while((line = in.readLine()) != null) {
+				index++;
+				if(line.trim().isEmpty()) continue;
+				final int i = index;
+				final String l = line;
+				queued.acquire();
+				pool.execute(() -> {
+					String result = i+" failed";
+					try {
+						result = solve(i, l);
+					} finally {
+						out.write(outFile, result+System.lineSeparator());
+						queued.release();
+					}
+				});
+			}
+			// waiting for the remaining puzzles
+			queued.acquire(workers*QUEUED_PER_WORKER);
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+			if(!out.close()) System.exit(1);
+		} catch (IOException e) {
+			System.err.println("Couldn't read the puzzles: "+e.getMessage());
+			pool.shutdownNow();
+			System.exit(1);
+		} catch (InterruptedException e) {
+			System.out.println("Interrupted before finishing.");
+			pool.shutdownNow();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Solve the puzzle on a line.
+	 * @param index, line number.
+	 * @param line
+	 * @return the result line.
+	 */
+	private String solve(int index, String line) {
+		String[] parts;
+		if(line.contains(";")) {
+			parts = line.split(";");
+		} else {
+			parts = line.trim().split("\\s+");
+			if(parts.length > 2) parts = new String[] {line};
+		}
+		GameState initialGS = parts.length <= 2 ? MainBody.parseState(parts[0], width) : null;
+		if(initialGS == null || onlyThreeByThree && initialGS.getSize() != BoardSize.of(3,3)) return index+" invalid";
+		GameState target;
+		if(parts.length == 2) {
+			target = MainBody.parseState(parts[1], width);
+			if(target == null || target.getSize() != initialGS.getSize()) return index+" invalid";
+		} else {
+			int[] ordered = new int[initialGS.getSize().cells];
+			for(int i = 0; i<ordered.length; i++) ordered[i] = i;
+			target = new GameState(initialGS.getSize(), ordered);
+		}
+		int depthLimit = settings.depthLimit;
+		Rejection rejection = Rejection.check(initialGS, target, depthLimit);
+		if(rejection != null) return index+" rejected "+rejection.code();
+
+		SearchEngine engine;
+		GameStateNode start;
+		if(appr == null) {
+			start = new GameStateNode(initialGS, target);
+			engine = MainBody.createEngine(settings, start, null);
+		} else if(settings.mode.equals("bidirectional")) {
+			start = new GameStateNode(initialGS, target, heuristics.get());
+			engine = new BidirectionalSearch(start, backwardHeuristics.get(), appr.name, depthLimit);
+		} else {
+			start = new GameStateNode(initialGS, target, heuristics.get());
+			engine = MainBody.createEngine(settings, start, appr);
+		}
+		if(cache != null) engine = new CachedSearch(engine, start, depthLimit, cache);
+		engine.run();
+
+		GameStateNode solution = engine.getSolution();
+		Budget budget = engine.getBudget();
+		if(solution == null && budget != null && budget.getStopReason() != null) return index+" stopped "+budget.getStopReason();
+		if(solution == null) return index+" -1 "+engine.getDuration().toMillis();
+		return index+" "+solution.getSteps()+" "+engine.getDuration().toMillis()+" "+Moves.toText(Moves.of(solution));
+	}
+}
@@ -0,0 +1,147 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * An instances of this class represent a beam search attempt to solve a specific 8-puzzle.
+ * The tree is searched one depth at a time, and only a fixed number of the nodes of each depth,
+ * those with the lowest heuristic values, are kept and expanded. A configuration already kept
+ * at one of the two previous depths, or twice at the same depth, is left out.
+ *
+ * The width is the node limit divided by the number of depths, so that the nodes kept along the
+ * parent links of the last depth never exceed the limit. The solution is not promised to be optimal,
+ * and the search may fail to find one although one exists within the depth limit.
+ * Can be ran as a thread.
+ */
+public class BeamSearch implements SearchEngine {
+
+	private GameStateNode root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private String name;
+	private int depthLimit;
+	private int width;
+
+	private SearchStatistics stats;
+	private Budget budget;
+
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 * @param nodeLimit, nodes kept in memory, shared evenly by the depths.
+	 */
+	BeamSearch(GameStateNode initialState, String name, int depthLimit, long nodeLimit){
+		this.root = initialState;
+		this.target = initialState.getTarget();
+		this.heuristic = initialState.getHeuristic();
+		this.name = name;
+		this.depthLimit = depthLimit;
+		this.width = (int) Math.max(1, Math.min(Integer.MAX_VALUE, nodeLimit/(depthLimit+1)));
+		solution = null;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started with a width of "+width+".");
+		stats.start();
+		budget.start();
+		long count = 0;
+
+		ArrayList<GameStateNode> layer = new ArrayList<GameStateNode>();
+		layer.add(root);
+		HashSet<GameState> previous = new HashSet<GameState>();
+		HashSet<GameState> current = new HashSet<GameState>();
+		current.add(root.getGameState());
+		if(root.getGameState().equals(target)) solution = root;
+		Comparator<GameStateNode> byDistance = Comparator.comparingDouble(GameStateNode::getDistance);
+
+		search:
+		for(int depth = 0; solution == null && depth < depthLimit && !layer.isEmpty(); depth++) {
+			ArrayList<GameStateNode> next = new ArrayList<GameStateNode>();
+			HashSet<GameState> reached = new HashSet<GameState>();
+			for(GameStateNode gsn:layer) {
+				if(++count % Budget.CHECK_INTERVAL == 0
+						&& budget.exceeded(stats.getExpanded(), Budget.NODE_BYTES*(long) width*(depth+1))) break search;
+				stats.expanded(depth);
+				GameState gs = gsn.getGameState();
+				BoardSize size = gs.getSize();
+				int blank = gs.getBlankIndex();
+				for(int move:size.legalMoves(blank)) {
+					GameState childGS = gs.clone();
+					childGS.slide(size.move(move, blank));
+					stats.generated(1);
+					if(previous.contains(childGS) || current.contains(childGS) || !reached.add(childGS)) {
+						stats.duplicate();
+						continue;
+					}
+					// the parent keeps no link to the child, so the nodes left out of the beam are released
+					GameStateNode child = new GameStateNode(gsn, childGS, heuristic);
+					if(childGS.equals(target)) {
+						solution = child;
+						break search;
+					}
+					// measured now, the sort skips the comparator on a beam of a single node and its children need the target
+					child.getDistance(target);
+					next.add(child);
+				}
+			}
+			next.sort(byDistance);
+			if(next.size() > width) next.subList(width, next.size()).clear();
+			stats.open(next.size());
+			previous = current;
+			current = new HashSet<GameState>();
+			for(GameStateNode gsn:next) current.add(gsn.getGameState());
+			layer = next;
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		stats.finish(solution == null ? -1 : solution.getSteps());
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * The length of the solution is not bounded.
+	 * @return infinity.
+	 */
+	public double getBound() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	/**
+	 * Get the counters describing the cost of the search, the f-layers being the depths.
+	 * @return SearchStatistics
+	 */
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+}
@@ -0,0 +1,167 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * An instances of this class represent a bidirectional attempt to solve a specific 8-puzzle.
+ * One search expands nodes from the initial state towards the target, the other from the target
+ * towards the initial state, each with its own open list and table of reached configurations.
+ *
+ * Follows the meet in the middle (MM) algorithm: nodes are expanded in the order of max(f, 2g),
+ * always on the side with the lower priority, and the search stops once the best path found
+ * through a configuration reached by both sides is no longer than the lowest priority,
+ * which makes the path optimal for admissible heuristics.
+ * Can be ran as a thread.
+ */
+public class BidirectionalSearch implements SearchEngine {
+
+	/**
+	 * Orders nodes by max(f, 2g), preferring nodes with fewer steps.
+	 */
+	private static final Comparator<GameStateNode> PRIORITY = (GameStateNode g, GameStateNode h)->{
+		int c = Double.compare(priority(g), priority(h));
+		if(c != 0) return c;
+		return Integer.compare(g.getSteps(), h.getSteps());
+	};
+
+	private OpenList forward;
+	private OpenList backward;
+	private NodeTable reachedForward;
+	private NodeTable reachedBackward;
+	private HeuristicMethod heuristic;
+	private String name;
+	private int depthLimit;
+
+	private GameStateNode meetForward;
+	private GameStateNode meetBackward;
+	private GameStateNode solution;
+	private Budget budget;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param backwardHeuristic, heuristic estimating the distance to the initial state,
+	 * a separate instance of the same heuristic, as heuristics may be prepared for a single target.
+	 * @param name
+	 * @param depthLimit, longest solution to be looked for.
+	 */
+	BidirectionalSearch(GameStateNode initialState, HeuristicMethod backwardHeuristic, String name, int depthLimit){
+		this.heuristic = initialState.getHeuristic();
+		this.name = name;
+		this.depthLimit = depthLimit;
+		GameStateNode targetRoot = new GameStateNode(initialState.getTarget(), initialState.getGameState(), backwardHeuristic);
+
+		forward = new HeapOpenList(PRIORITY);
+		backward = new HeapOpenList(PRIORITY);
+		reachedForward = new NodeTable();
+		reachedBackward = new NodeTable();
+		forward.add(initialState);
+		backward.add(targetRoot);
+		reachedForward.offer(initialState);
+		reachedBackward.offer(targetRoot);
+		solution = null;
+		budget = new Budget();
+	}
+
+	/**
+	 * @param gsn
+	 * @return priority of the node, max(f, 2g).
+	 */
+	private static double priority(GameStateNode gsn) {
+		return Math.max(gsn.getDistance(), 2*gsn.getSteps());
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+		budget.start();
+		long expanded = 0;
+
+		// length of the best path found so far
+		int best = Integer.MAX_VALUE;
+		GameStateNode root = forward.peek();
+		if(root.getGameState().equals(backward.peek().getGameState())) {
+			best = 0;
+			meetForward = root;
+			meetBackward = backward.peek();
+		}
+
+		while(!forward.isEmpty() && !backward.isEmpty()) {
+			double pf = priority(forward.peek());
+			double pb = priority(backward.peek());
+			double lowest = Math.min(pf, pb);
+			if(best <= lowest) break;
+			// no path within the depth limit remains
+			if(lowest > depthLimit) break;
+
+			boolean isForward = pf <= pb;
+			OpenList open = isForward ? forward : backward;
+			NodeTable reached = isForward ? reachedForward : reachedBackward;
+			NodeTable opposite = isForward ? reachedBackward : reachedForward;
+
+			// a path found before the search is stopped may not be the shortest one
+			if(++expanded % Budget.CHECK_INTERVAL == 0
+					&& budget.exceeded(expanded, Budget.NODE_BYTES*(reachedForward.size()+reachedBackward.size()))) {
+				best = Integer.MAX_VALUE;
+				break;
+			}
+			GameStateNode gsn = open.poll();
+			// a shorter path to this configuration was found after it had been queued
+			if(reached.get(gsn.getGameState()) != gsn) continue;
+			if(gsn.getSteps() >= depthLimit) continue;
+
+			int nOfChildren = gsn.makeChildren();
+			for(int i = 0; i<nOfChildren; i++) {
+				GameStateNode child = gsn.getChild(i);
+				if(!reached.offer(child)) continue;
+				open.add(child);
+				GameStateNode other = opposite.get(child.getGameState());
+				if(other != null && child.getSteps()+other.getSteps() < best) {
+					best = child.getSteps()+other.getSteps();
+					meetForward = isForward ? child : other;
+					meetBackward = isForward ? other : child;
+				}
+			}
+		}
+		if(best <= depthLimit) makeSolution();
+
+		d = Duration.between(startTime, Instant.now());
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Join the two halves of the path where they meet.
+	 * The backward half is walked from the meeting point to the target and appended to the forward half.
+	 */
+	private void makeSolution() {
+		GameStateNode node = meetForward;
+		GameStateNode back = meetBackward.getParent();
+		while(back != null) {
+			node = new GameStateNode(node, back.getGameState(), heuristic);
+			back = back.getParent();
+		}
+		solution = node;
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+}
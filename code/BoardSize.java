@@ -0,0 +1,127 @@
+/**
+ * Instances of this class describe the dimensions of a puzzle grid
+ * and hold the tables of moves of the blank tile for every cell.
+ * There is a single instance for every size, obtained by BoardSize.of().
+ *
+ * Cells are numbered in the reading order, left to right starting with the top line.
+ * Every tile takes 4 bits if the board has at most 16 cells and 5 bits otherwise,
+ * the packed configuration must fit into two longs, which limits the board to 25 cells.
+ */
+public class BoardSize {
+
+	// moves of the blank tile, opposite moves add up to 3
+	static final int DOWN = 0;
+	static final int LEFT = 1;
+	static final int RIGHT = 2;
+	static final int UP = 3;
+
+	/**
+	 * Largest number of cells which fits into the packed configuration.
+	 */
+	static final int MAX_CELLS = 25;
+
+	private static final BoardSize[] cache = new BoardSize[(MAX_CELLS+1)*(MAX_CELLS+1)];
+
+	final int width;
+	final int height;
+	final int cells;
+	final int bits;
+
+	/**
+	 * moves[direction*cells+cell] is the cell the blank tile moves to from the cell, -1 if it would leave the grid.
+	 */
+	private final int[] moves;
+
+	/**
+	 * legal[cell] lists the directions the blank tile can move in from the cell, in the order of the directions.
+	 */
+	private final int[][] legal;
+
+	/**
+	 * Private constructor.
+	 * @param width, number of columns.
+	 * @param height, number of lines.
+	 */
+	private BoardSize(int width, int height){
+		this.width = width;
+		this.height = height;
+		this.cells = width*height;
+		this.bits = cells <= 16 ? 4 : 5;
+
+		moves = new int[4*cells];
+		for(int i = 0; i<cells; i++) {
+			moves[DOWN*cells+i] = i+width < cells ? i+width : -1;
+			moves[LEFT*cells+i] = i%width != 0 ? i-1 : -1;
+			moves[RIGHT*cells+i] = i%width != width-1 ? i+1 : -1;
+			moves[UP*cells+i] = i >= width ? i-width : -1;
+		}
+		legal = new int[cells][];
+		for(int i = 0; i<cells; i++) {
+			int n = 0;
+			for(int d = DOWN; d <= UP; d++) {
+				if(moves[d*cells+i] >= 0) n++;
+			}
+			legal[i] = new int[n];
+			n = 0;
+			for(int d = DOWN; d <= UP; d++) {
+				if(moves[d*cells+i] >= 0) legal[i][n++] = d;
+			}
+		}
+	}
+
+	/**
+	 * Get the instance describing a size.
+	 * @param width, number of columns.
+	 * @param height, number of lines.
+	 * @return BoardSize
+	 * @throws IllegalArgumentException if the board is smaller than 2x2 or has more than 25 cells.
+	 */
+	static synchronized BoardSize of(int width, int height) {
+		if(width < 2 || height < 2 || width*height > MAX_CELLS) {
+			throw new IllegalArgumentException("Unsupported board size "+width+"x"+height+".");
+		}
+		int key = width*(MAX_CELLS+1)+height;
+		if(cache[key] == null) cache[key] = new BoardSize(width, height);
+		return cache[key];
+	}
+
+	/**
+	 * Get the cell the blank tile moves to.
+	 * @param direction, one of DOWN, LEFT, RIGHT, UP.
+	 * @param cell, index of the cell holding the blank tile.
+	 * @return index of the cell, -1 if the blank tile would leave the grid.
+	 */
+	int move(int direction, int cell) {
+		return moves[direction*cells+cell];
+	}
+
+	/**
+	 * Get the directions the blank tile can move in, so that move generation needs no bounds checks.
+	 * The array is shared and must not be modified.
+	 * @param cell, index of the cell holding the blank tile.
+	 * @return the directions, in the order DOWN, LEFT, RIGHT, UP.
+	 */
+	int[] legalMoves(int cell) {
+		return legal[cell];
+	}
+
+	/**
+	 * @param cell
+	 * @return column of the cell, 0 being the leftmost.
+	 */
+	int x(int cell) {
+		return cell%width;
+	}
+
+	/**
+	 * @param cell
+	 * @return line of the cell, 0 being the bottom one.
+	 */
+	int y(int cell) {
+		return height-1-cell/width;
+	}
+
+	public String toString() {
+		return width+"x"+height;
+	}
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+/**
+ * Open list for integer valued heuristics.
+ * Nodes are kept in an array of buckets, one per distance (f) value.
+ * Every bucket is subdivided by the number of steps (g) into LIFO stacks,
+ * so both insertion and removal of the best node take constant time
+ * and ties are broken deterministically.
+ */
+public class BucketOpenList implements OpenList {
+
+	/**
+	 * All nodes sharing a single distance value.
+	 */
+	private static class Bucket {
+		GameStateNode[][] stacks = new GameStateNode[0][];
+		int[] tops = new int[0];
+		int size = 0;
+
+		void push(GameStateNode gsn, int g) {
+			if(g >= stacks.length) {
+				int n = Math.max(g+1, stacks.length*2);
+				stacks = Arrays.copyOf(stacks, n);
+				tops = Arrays.copyOf(tops, n);
+			}
+			if(stacks[g] == null) stacks[g] = new GameStateNode[16];
+			if(tops[g] == stacks[g].length) stacks[g] = Arrays.copyOf(stacks[g], tops[g]*2);
+			stacks[g][tops[g]++] = gsn;
+			size++;
+		}
+	}
+
+	private Bucket[] buckets;
+	private int minF;
+	private int size;
+	private boolean preferDeepest;
+
+	/**
+	 * Constructor.
+	 * Among the nodes with the same distance the deepest one is returned first.
+	 */
+	BucketOpenList(){
+		this(true);
+	}
+	/**
+	 * Constructor.
+	 * @param preferDeepest, true to return the node with the most steps first among nodes with the same distance,
+	 * false to return the one with the fewest steps first.
+	 */
+	BucketOpenList(boolean preferDeepest){
+		buckets = new Bucket[32];
+		minF = buckets.length;
+		size = 0;
+		this.preferDeepest = preferDeepest;
+	}
+
+	public void add(GameStateNode gsn) {
+		int f = (int) Math.round(gsn.getDistance());
+		if(f >= buckets.length) buckets = Arrays.copyOf(buckets, Math.max(f+1, buckets.length*2));
+		if(buckets[f] == null) buckets[f] = new Bucket();
+		buckets[f].push(gsn, gsn.getSteps());
+		if(f < minF) minF = f;
+		size++;
+	}
+
+	public GameStateNode peek() {
+		return take(false);
+	}
+
+	public GameStateNode poll() {
+		return take(true);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Locate the best node.
+	 * @param remove, whether the node should be removed.
+	 * @return the best node, null if the list is empty.
+	 */
+	private GameStateNode take(boolean remove) {
+		if(size == 0) return null;
+		while(buckets[minF] == null || buckets[minF].size == 0) minF++;
+		Bucket b = buckets[minF];
+		int g;
+		if(preferDeepest) {
+			g = b.tops.length-1;
+			while(b.tops[g] == 0) g--;
+		} else {
+			g = 0;
+			while(b.tops[g] == 0) g++;
+		}
+		if(!remove) return b.stacks[g][b.tops[g]-1];
+		GameStateNode gsn = b.stacks[g][--b.tops[g]];
+		b.stacks[g][b.tops[g]] = null;
+		b.size--;
+		size--;
+		return gsn;
+	}
+}
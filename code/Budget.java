@@ -0,0 +1,110 @@
+import java.time.Duration;
+
+/**
+ * Limits on the nodes, the memory and the time a search may use, together with the flag
+ * by which another thread cancels the search.
+ *
+ * A search calls exceeded() once every CHECK_INTERVAL expansions, so the check costs next to nothing,
+ * and a cancelled search stops within a few thousand expansions.
+ * The memory of a search is its own estimate of the tables it keeps, not the size of the heap.
+ * Every search has its own instance, created by SearchSettings.budget().
+ */
+public class Budget {
+
+	/**
+	 * Number of expansions between two checks.
+	 */
+	static final int CHECK_INTERVAL = 1024;
+
+	/**
+	 * Approximate size of a GameStateNode with its GameState, for searches keeping node objects.
+	 */
+	static final int NODE_BYTES = 160;
+
+	private final long maxNodes;
+	private final long maxBytes;
+	private final Duration maxTime;
+	private long deadline;
+
+	private volatile boolean cancelled;
+	private volatile String stopReason;
+	private volatile long nodes;
+	private volatile long bytes;
+
+	/**
+	 * Constructor of an unlimited budget, which only allows cancelling the search.
+	 */
+	Budget(){
+		this(0, 0, null);
+	}
+	/**
+	 * Constructor.
+	 * @param maxNodes, number of nodes expanded, 0 for no limit.
+	 * @param maxBytes, estimated memory of the search, 0 for no limit.
+	 * @param maxTime, null for no limit.
+	 */
+	Budget(long maxNodes, long maxBytes, Duration maxTime){
+		this.maxNodes = maxNodes;
+		this.maxBytes = maxBytes;
+		this.maxTime = maxTime;
+		deadline = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Start the clock of the time budget, called when the search starts.
+	 */
+	void start() {
+		if(maxTime != null) deadline = System.nanoTime() + maxTime.toNanos();
+	}
+
+	/**
+	 * Ask the search to stop at its next check. May be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Check whether the search must stop, remembering what it has used.
+	 * @param nodes, expanded so far.
+	 * @param bytes, estimated memory of the search.
+	 * @return true if the search was cancelled or is over its budget.
+	 */
+	boolean exceeded(long nodes, long bytes) {
+		this.nodes = nodes;
+		this.bytes = bytes;
+		if(stopReason != null) return true;
+		if(cancelled) {
+			stopReason = "cancelled";
+		} else if(maxNodes > 0 && nodes >= maxNodes) {
+			stopReason = "node-budget";
+		} else if(maxBytes > 0 && bytes >= maxBytes) {
+			stopReason = "memory-budget";
+		} else if(System.nanoTime() >= deadline) {
+			stopReason = "time-budget";
+		}
+		return stopReason != null;
+	}
+
+	/**
+	 * @return why the search stopped early, one of cancelled, node-budget, memory-budget or time-budget,
+	 * null if it was not stopped.
+	 */
+	public String getStopReason() {
+		return stopReason;
+	}
+
+	/**
+	 * @return nodes expanded at the last check.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return estimated memory of the search at the last check.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,86 @@
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Looks a puzzle up in a SolutionCache before running a search, and stores the solution the search finds.
+ * Can be ran as a thread.
+ */
+public class CachedSearch implements SearchEngine {
+
+	private SearchEngine engine;
+	private SolutionCache cache;
+	private GameStateNode root;
+	private int depthLimit;
+
+	private boolean hit;
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param engine, the search run if the puzzle is not in the cache, its solution is stored if it is optimal.
+	 * @param root, root node of the search, created with the target.
+	 * @param depthLimit, longest solution to be returned.
+	 * @param cache
+	 */
+	CachedSearch(SearchEngine engine, GameStateNode root, int depthLimit, SolutionCache cache){
+		this.engine = engine;
+		this.root = root;
+		this.depthLimit = depthLimit;
+		this.cache = cache;
+		solution = null;
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		GameStateNode cached = cache.lookup(root.getGameState(), root.getTarget(), root.getHeuristic());
+		hit = cached != null;
+		if(hit) {
+			// the cached solution is optimal, the search would not find one within the depth limit either
+			if(cached.getSteps() <= depthLimit) solution = cached;
+			d = Duration.between(startTime, Instant.now());
+			Progress.report(getName(), "found the solution in the cache.");
+			return;
+		}
+		engine.run();
+		solution = engine.getSolution();
+		// only optimal solutions answer the puzzles along them
+		if(solution != null && engine.getBound() == 1) cache.store(solution);
+		d = Duration.between(startTime, Instant.now());
+	}
+
+	/**
+	 * @return true if the solution was taken from the cache.
+	 */
+	boolean isHit() {
+		return hit;
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return engine.getName();
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	public double getBound() {
+		return hit ? 1 : engine.getBound();
+	}
+
+	public SearchStatistics getStatistics() {
+		return hit ? null : engine.getStatistics();
+	}
+
+	public void setBudget(Budget budget) {
+		engine.setBudget(budget);
+	}
+
+	public Budget getBudget() {
+		return engine.getBudget();
+	}
+}
@@ -1,6 +1,6 @@
 /**
  * A custom exception class.
- * Returned when the blank tile is to be moved off the 3x3 grid.
+ * Returned when the blank tile is to be moved off the grid.
  */
 public class CannotExecuteException extends Exception {
 
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Closed set of the search.
+ * Maps packed puzzle configurations to the lowest number of steps they were reached with.
+ * Implemented as an open-addressing hash table over primitive arrays, so no boxing occurs.
+ *
+ * Keys are the two words of the packed configuration. The packed value 0 is never
+ * a valid configuration (all cells holding the blank tile) and marks an empty slot.
+ */
+public class ClosedSet {
+
+	/**
+	 * Returned by get() when the configuration has not been seen.
+	 */
+	static final int ABSENT = -1;
+
+	private long[] keys;
+	private long[] keysHigh;
+	private int[] steps;
+	private int mask;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * Starts with a small table that grows as needed.
+	 */
+	ClosedSet(){
+		this(1<<10);
+	}
+	/**
+	 * Constructor.
+	 * @param capacity, expected number of configurations, rounded up to a power of two.
+	 */
+	ClosedSet(int capacity){
+		int n = Integer.highestOneBit(Math.max(capacity, 2)-1)<<2;
+		keys = new long[n];
+		keysHigh = new long[n];
+		steps = new int[n];
+		mask = n-1;
+		size = 0;
+	}
+
+	/**
+	 * Get the number of steps a configuration was reached with.
+	 * @param key, low word of the packed configuration.
+	 * @param keyHigh, high word of the packed configuration.
+	 * @return lowest number of steps recorded, ABSENT if the configuration was not recorded.
+	 */
+	public int get(long key, long keyHigh) {
+		int i = slot(key, keyHigh);
+		while(keys[i] != 0 || keysHigh[i] != 0) {
+			if(keys[i] == key && keysHigh[i] == keyHigh) return steps[i];
+			i = (i+1) & mask;
+		}
+		return ABSENT;
+	}
+
+	/**
+	 * Record a configuration unless it has already been reached in as few steps.
+	 * @param key, low word of the packed configuration.
+	 * @param keyHigh, high word of the packed configuration.
+	 * @param g, number of steps the configuration has been reached with.
+	 * @return true if the configuration is new or g improves on the recorded value,
+	 * false if the configuration is dominated by an earlier one and should be dropped.
+	 */
+	public boolean offer(long key, long keyHigh, int g) {
+		int i = slot(key, keyHigh);
+		while(keys[i] != 0 || keysHigh[i] != 0) {
+			if(keys[i] == key && keysHigh[i] == keyHigh) {
+				if(steps[i] <= g) return false;
+				steps[i] = g;
+				return true;
+			}
+			i = (i+1) & mask;
+		}
+		keys[i] = key;
+		keysHigh[i] = keyHigh;
+		steps[i] = g;
+		size++;
+		if(size*2 > keys.length) grow();
+		return true;
+	}
+
+	/**
+	 * @return number of configurations recorded.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return memory taken by the table, in bytes.
+	 */
+	public long bytes() {
+		return (long) keys.length*(8+8+4);
+	}
+
+	/**
+	 * Forget all configurations, keeping the allocated table.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(keysHigh, 0);
+		size = 0;
+	}
+
+	/**
+	 * Double the table and reinsert all the entries.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldKeysHigh = keysHigh;
+		int[] oldSteps = steps;
+		keys = new long[oldKeys.length*2];
+		keysHigh = new long[oldKeys.length*2];
+		steps = new int[oldKeys.length*2];
+		mask = keys.length-1;
+		for(int j = 0; j<oldKeys.length; j++) {
+			if(oldKeys[j] == 0 && oldKeysHigh[j] == 0) continue;
+			int i = slot(oldKeys[j], oldKeysHigh[j]);
+			while(keys[i] != 0 || keysHigh[i] != 0) i = (i+1) & mask;
+			keys[i] = oldKeys[j];
+			keysHigh[i] = oldKeysHigh[j];
+			steps[i] = oldSteps[j];
+		}
+	}
+
+	/**
+	 * @param key
+	 * @param keyHigh
+	 * @return home slot of the key.
+	 */
+	private int slot(long key, long keyHigh) {
+		long h = (key ^ keyHigh * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
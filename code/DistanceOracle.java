@@ -0,0 +1,165 @@
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Exact number of moves from every configuration to a specific target.
+ * Only half of the 9! configurations can reach the target, those are numbered by
+ * the cell of the blank tile and the Lehmer code of the other tiles read left to right,
+ * without the last two digits, which follow from the parity of the permutation.
+ * One byte per configuration gives a table of 9!/2 = 181440 bytes.
+ *
+ * The table is filled by a breadth first search from the target, saved to a file and memory-mapped.
+ */
+public class DistanceOracle {
+
+	private static final BoardSize SIZE_3X3 = BoardSize.of(3,3);
+	private static final int CELLS = SIZE_3X3.cells;
+
+	/**
+	 * Number of orderings of the tiles with a given parity.
+	 */
+	private static final int ORDERINGS = factorial(CELLS-1)/2;
+
+	/**
+	 * Size of the table.
+	 */
+	static final int SIZE = CELLS*ORDERINGS;
+
+	/**
+	 * Distance of configurations which cannot reach the target.
+	 */
+	static final int UNREACHABLE = 0xFF;
+
+	private GameState target;
+	private int parity;
+	private ByteBuffer table;
+
+	/**
+	 * Constructor.
+	 * Loads the table from a file in the directory, or builds and saves it if there is none.
+	 * @param target, the target the distances are measured to.
+	 * @param directory, where the table is stored.
+	 * @throws IllegalArgumentException if the target is not a 3x3 board.
+	 */
+	DistanceOracle(GameState target, File directory){
+		if(target.getSize() != SIZE_3X3) {
+			throw new IllegalArgumentException("The distance oracle only supports 3x3 boards.");
+		}
+		this.target = target;
+		this.parity = parity(target.getPacked(), target.getBlankIndex());
+
+		File file = new File(directory, "oracle_"+Long.toHexString(target.getPacked())+".bin");
+		table = TableFile.loadOrBuild(file, SIZE, () -> build());
+	}
+
+	/**
+	 * @return the target the distances are measured to.
+	 */
+	GameState getTarget() {
+		return target;
+	}
+
+	/**
+	 * Get the number of moves needed to reach the target.
+	 * @param packed, packed configuration.
+	 * @param blank, index of the cell holding the blank tile.
+	 * @return int, UNREACHABLE if the target cannot be reached.
+	 */
+	public int distance(long packed, int blank) {
+		if(parity(packed, blank) != parity) return UNREACHABLE;
+		return table.get(rank(packed, blank)) & 0xFF;
+	}
+
+	/**
+	 * Get the number of moves needed to reach the target.
+	 * @param gs
+	 * @return int, UNREACHABLE if the target cannot be reached.
+	 */
+	public int distance(GameState gs) {
+		return distance(gs.getPacked(), gs.getBlankIndex());
+	}
+
+	/**
+	 * Parity of the permutation of the tiles read left to right, skipping the blank tile.
+	 * Configurations can only reach each other if the parities match.
+	 * @param packed
+	 * @param blank
+	 * @return 0 or 1
+	 */
+	static int parity(long packed, int blank) {
+		int sum = 0;
+		int seen = 0;
+		for(int i = 0; i<CELLS; i++) {
+			if(i == blank) continue;
+			int t = GameState.tileAt(packed, i);
+			sum += Integer.bitCount(seen & ~((1<<t)-1));
+			seen |= 1<<t;
+		}
+		return sum & 1;
+	}
+
+	/**
+	 * Index of a configuration in the table.
+	 * @param packed
+	 * @param blank
+	 * @return int between 0 and SIZE-1
+	 */
+	static int rank(long packed, int blank) {
+		int rank = 0;
+		int seen = 0;
+		int digit = 0;
+		for(int i = 0; i<CELLS && digit < CELLS-3; i++) {
+			if(i == blank) continue;
+			int t = GameState.tileAt(packed, i);
+			// tiles 1 to 8 are numbered 0 to 7
+			rank = rank*(CELLS-1-digit) + t-1 - Integer.bitCount(seen & ((1<<t)-1));
+			seen |= 1<<t;
+			digit++;
+		}
+		return blank*ORDERINGS + rank;
+	}
+
+	/**
+	 * Breadth first search from the target.
+	 * @return the table
+	 */
+	private byte[] build() {
+		byte[] built = new byte[SIZE];
+		Arrays.fill(built, (byte) UNREACHABLE);
+
+		// every reachable configuration is queued exactly once
+		long[] queue = new long[SIZE];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = target.getPacked() | ((long) target.getBlankIndex() << 60);
+		built[rank(target.getPacked(), target.getBlankIndex())] = 0;
+
+		while(head < tail) {
+			long entry = queue[head++];
+			long packed = entry & ~(0xFL << 60);
+			int blank = (int) (entry >>> 60);
+			int dist = built[rank(packed, blank)];
+
+			for(int move:SIZE_3X3.legalMoves(blank)) {
+				int nextBlank = SIZE_3X3.move(move, blank);
+				long next = GameState.slide(packed, blank, nextBlank);
+				int r = rank(next, nextBlank);
+				if(built[r] != (byte) UNREACHABLE) continue;
+				built[r] = (byte) (dist+1);
+				queue[tail++] = next | ((long) nextBlank << 60);
+			}
+		}
+		return built;
+	}
+
+	/**
+	 * @param n
+	 * @return n!
+	 */
+	private static int factorial(int n) {
+		int f = 1;
+		for(int i = 2; i<=n; i++) f *= i;
+		return f;
+	}
+}
@@ -0,0 +1,606 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * An instances of this class represent an external memory A* attempt to solve a specific puzzle,
+ * following External A* (Edelkamp, Jabbar and Schroedl).
+ *
+ * The frontier is kept on disk, partitioned into a file for every pair of the number of steps (g)
+ * and the value of the heuristic (h), and the buckets are expanded in the order of f = g+h, then of g.
+ * Children are appended to the files of their buckets unsorted. A bucket is made free of duplicates
+ * only before it is expanded: its file is sorted in runs of a bounded size, the runs are merged,
+ * and configurations also found in the buckets of g-1 and g-2 with the same h are dropped,
+ * which are the only other places a configuration can be found with a consistent heuristic and unit moves.
+ * The memory used is therefore bounded by the size of a run, not by the difficulty of the puzzle.
+ *
+ * A record holds the configuration and the last move, the expanded buckets stay sorted on disk,
+ * so the solution is rebuilt by undoing the moves and looking the parents up in their buckets.
+ * The heuristic must be consistent, a fractional value is rounded down, which keeps it consistent.
+ * The files are kept in the directory given by the java.io.tmpdir property and deleted afterwards.
+ * Can be ran as a thread.
+ */
+public class ExternalSearch implements SearchEngine {
+
+	/**
+	 * Size of a record: two words of the packed configuration and a byte with the blank cell and the last move.
+	 */
+	private static final int RECORD = 17;
+
+	/**
+	 * Size of the buffer of a file being appended to.
+	 */
+	private static final int WRITE_BUFFER = 1<<16;
+
+	/**
+	 * Number of records of a file mapped into memory at a time.
+	 */
+	private static final int SEGMENT_RECORDS = 1<<22;
+
+	/**
+	 * Default memory for sorting the buckets.
+	 */
+	static final long DEFAULT_MEMORY = 64_000_000;
+
+	/**
+	 * A partition of the frontier.
+	 */
+	private static class Bucket {
+		final int g;
+		final int h;
+		final Path file;
+		long records;
+		boolean sorted;
+
+		Bucket(int g, int h, Path file) {
+			this.g = g;
+			this.h = h;
+			this.file = file;
+		}
+	}
+
+	private GameStateNode root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private String name;
+	private int depthLimit;
+	private int runCapacity;
+
+	private Path directory;
+	// buckets not expanded yet, by f and g
+	private TreeMap<Long, Bucket> frontier;
+	// all buckets, by g and h
+	private HashMap<Long, Bucket> buckets;
+	private long queued;
+
+	// a run being sorted
+	private long[] runPacked;
+	private long[] runPackedHigh;
+	private byte[] runInfo;
+
+	private GameStateNode solution;
+	private SearchStatistics stats;
+	private Budget budget;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used, which must be consistent.
+	 * @param name
+	 * @param depthLimit
+	 * @param memory, bytes used for sorting a bucket, which bounds the memory of the search.
+	 */
+	ExternalSearch(GameStateNode initialState, String name, int depthLimit, long memory){
+		this.root = initialState;
+		this.target = initialState.getTarget();
+		this.heuristic = initialState.getHeuristic();
+		this.name = name;
+		this.depthLimit = depthLimit;
+		runCapacity = (int) Math.max(1024, Math.min(Integer.MAX_VALUE-8, memory/RECORD));
+		solution = null;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+		stats.start();
+		budget.start();
+		frontier = new TreeMap<Long, Bucket>();
+		buckets = new HashMap<Long, Bucket>();
+		queued = 0;
+		int goal = -1;
+		GameState found = null;
+		try {
+			directory = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "external-search");
+			runPacked = new long[runCapacity];
+			runPackedHigh = new long[runCapacity];
+			runInfo = new byte[runCapacity];
+
+			GameState gs = root.getGameState();
+			Bucket first = bucket(0, h(gs));
+			try (RecordWriter out = new RecordWriter(first.file)) {
+				out.write(gs.getPacked(), gs.getPackedHigh(), info(gs.getBlankIndex(), -1));
+			}
+			first.records++;
+			queued = 1;
+
+			GameState board = gs.clone();
+			Successors successors = new Successors();
+			int lastF = -1;
+			while(!frontier.isEmpty()) {
+				Bucket b = frontier.pollFirstEntry().getValue();
+				if(b.g+b.h > depthLimit) break;
+				if(b.g+b.h != lastF) {
+					lastF = b.g+b.h;
+					Progress.report(name, "expanding f = "+lastF+", "+queued+" records on disk.");
+				}
+				queued -= b.records;
+				sort(b);
+				if(budget.exceeded(stats.getExpanded(), (long) runCapacity*RECORD)) break;
+				found = expand(b, board, successors);
+				if(found != null) {
+					goal = b.g;
+					break;
+				}
+			}
+			if(found != null) solution = makeSolution(found, goal);
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Couldn't use the files of the external search: "+e.getMessage());
+		} catch (IllegalStateException e) {
+			System.out.println(e.getMessage());
+		} finally {
+			runPacked = null;
+			runPackedHigh = null;
+			runInfo = null;
+			deleteFiles();
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		stats.finish(solution == null ? -1 : goal);
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Expand every configuration of a sorted bucket, appending the children to their buckets.
+	 * @param b
+	 * @param board, reused for the configurations.
+	 * @param successors, reused for the children.
+	 * @return the target if it is in the bucket, null otherwise.
+	 * @throws IOException
+	 */
+	private GameState expand(Bucket b, GameState board, Successors successors) throws IOException {
+		BoardSize size = board.getSize();
+		// the children of a bucket have one of three values of the heuristic
+		RecordWriter[] outs = new RecordWriter[3];
+		Bucket[] children = new Bucket[3];
+		int count = 0;
+		try (RecordReader in = new RecordReader(b.file)) {
+			while(in.next()) {
+				board.set(in.packed, in.packedHigh, blank(in.info));
+				if(board.equals(target)) return board.clone();
+				if(b.g >= depthLimit) continue;
+				if(++count % Budget.CHECK_INTERVAL == 0 && budget.exceeded(stats.getExpanded(), (long) runCapacity*RECORD)) return null;
+				stats.expanded(b.g+b.h);
+				board.successors(move(in.info), successors);
+				stats.generated(successors.count);
+				for(int k = 0; k<successors.count; k++) {
+					GameState child = new GameState(size, successors.packed[k], successors.packedHigh[k], successors.blank[k]);
+					int h = h(child);
+					int slot = h-b.h+1;
+					if(slot < 0 || slot > 2) {
+						throw new IllegalStateException("The heuristic "+name+" is not consistent.");
+					}
+					if(outs[slot] == null) {
+						children[slot] = bucket(b.g+1, h);
+						outs[slot] = new RecordWriter(children[slot].file);
+					}
+					outs[slot].write(successors.packed[k], successors.packedHigh[k], info(successors.blank[k], successors.move[k]));
+					children[slot].records++;
+					queued++;
+				}
+				stats.open((int) Math.min(Integer.MAX_VALUE, queued));
+			}
+		} finally {
+			for(RecordWriter out:outs) {
+				if(out != null) out.close();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sort a bucket and drop its duplicates, together with the configurations
+	 * found in the buckets of g-1 and g-2 with the same value of the heuristic.
+	 * The runs are sorted in memory, written to files of their own and merged.
+	 * @param b
+	 * @throws IOException
+	 */
+	private void sort(Bucket b) throws IOException {
+		ArrayList<Path> runs = new ArrayList<Path>();
+		try (RecordReader in = new RecordReader(b.file)) {
+			boolean more = true;
+			while(more) {
+				int n = 0;
+				while(n < runCapacity && (more = in.next())) {
+					runPacked[n] = in.packed;
+					runPackedHigh[n] = in.packedHigh;
+					runInfo[n] = in.info;
+					n++;
+				}
+				if(n == 0) break;
+				quickSort(0, n-1);
+				Path run = directory.resolve("run-"+runs.size());
+				try (RecordWriter out = new RecordWriter(run)) {
+					for(int i = 0; i<n; i++) {
+						if(i > 0 && runPacked[i] == runPacked[i-1] && runPackedHigh[i] == runPackedHigh[i-1]) continue;
+						out.write(runPacked[i], runPackedHigh[i], runInfo[i]);
+					}
+				}
+				runs.add(run);
+			}
+		}
+
+		Path merged = directory.resolve("merged");
+		RecordReader[] sources = new RecordReader[runs.size()];
+		RecordReader[] previous = new RecordReader[2];
+		long records = 0;
+		try (RecordWriter out = new RecordWriter(merged)) {
+			for(int i = 0; i<sources.length; i++) {
+				sources[i] = new RecordReader(runs.get(i));
+				if(!sources[i].next()) sources[i].close();
+			}
+			for(int i = 0; i<2; i++) {
+				Bucket p = buckets.get(key(b.g-1-i, b.h));
+				if(p != null && p.sorted) {
+					previous[i] = new RecordReader(p.file);
+					if(!previous[i].next()) previous[i].close();
+				}
+			}
+			long lastPacked = 0;
+			long lastPackedHigh = 0;
+			boolean first = true;
+			while(true) {
+				// the run with the smallest configuration
+				RecordReader min = null;
+				for(RecordReader s:sources) {
+					if(s.isOpen() && (min == null || compare(s.packed, s.packedHigh, min.packed, min.packedHigh) < 0)) min = s;
+				}
+				if(min == null) break;
+				long packed = min.packed;
+				long packedHigh = min.packedHigh;
+				byte info = min.info;
+				if(!min.next()) min.close();
+				if(!first && packed == lastPacked && packedHigh == lastPackedHigh) {
+					stats.duplicate();
+					continue;
+				}
+				first = false;
+				lastPacked = packed;
+				lastPackedHigh = packedHigh;
+				boolean seen = false;
+				for(RecordReader p:previous) {
+					if(p == null) continue;
+					while(p.isOpen() && compare(p.packed, p.packedHigh, packed, packedHigh) < 0) {
+						if(!p.next()) p.close();
+					}
+					if(p.isOpen() && p.packed == packed && p.packedHigh == packedHigh) seen = true;
+				}
+				if(seen) {
+					stats.duplicate();
+					continue;
+				}
+				out.write(packed, packedHigh, info);
+				records++;
+			}
+		} finally {
+			for(RecordReader s:sources) {
+				if(s != null) s.close();
+			}
+			for(RecordReader p:previous) {
+				if(p != null) p.close();
+			}
+		}
+		for(Path run:runs) Files.deleteIfExists(run);
+		Files.move(merged, b.file, StandardCopyOption.REPLACE_EXISTING);
+		b.records = records;
+		b.sorted = true;
+	}
+
+	/**
+	 * Rebuild the path by undoing the recorded moves, looking every parent up in its bucket.
+	 * @param goal, the target.
+	 * @param length, number of steps of the path.
+	 * @return a node identical to the target, its parents leading to the root.
+	 * @throws IOException
+	 */
+	private GameStateNode makeSolution(GameState goal, int length) throws IOException {
+		GameState[] path = new GameState[length+1];
+		path[length] = goal;
+		BoardSize size = goal.getSize();
+		GameState current = goal.clone();
+		for(int g = length; g > 0; g--) {
+			Bucket b = buckets.get(key(g, h(current)));
+			int move = lookUp(b.file, current.getPacked(), current.getPackedHigh());
+			// the blank tile moves back in the opposite direction
+			current.slide(size.move(BoardSize.UP-move, current.getBlankIndex()));
+			path[g-1] = current.clone();
+		}
+		GameStateNode node = root;
+		for(int g = 1; g <= length; g++) {
+			node = new GameStateNode(node, path[g], heuristic);
+		}
+		return node;
+	}
+
+	/**
+	 * Binary search of a sorted bucket.
+	 * @param file
+	 * @param packed
+	 * @param packedHigh
+	 * @return the last move of the configuration.
+	 * @throws IOException
+	 */
+	private static int lookUp(Path file, long packed, long packedHigh) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer record = ByteBuffer.allocate(RECORD);
+			long low = 0;
+			long high = channel.size()/RECORD-1;
+			while(low <= high) {
+				long mid = (low+high) >>> 1;
+				record.clear();
+				while(record.hasRemaining() && channel.read(record, mid*RECORD+record.position()) >= 0);
+				int c = compare(record.getLong(0), record.getLong(8), packed, packedHigh);
+				if(c == 0) return move(record.get(16));
+				if(c < 0) low = mid+1;
+				else high = mid-1;
+			}
+		}
+		throw new IllegalStateException("A configuration of the solution is missing from its bucket.");
+	}
+
+	/**
+	 * Get the bucket of a pair of g and h, creating it if needed.
+	 * @param g
+	 * @param h
+	 * @return Bucket
+	 */
+	private Bucket bucket(int g, int h) {
+		Bucket b = buckets.get(key(g, h));
+		if(b == null) {
+			b = new Bucket(g, h, directory.resolve("bucket-"+g+"-"+h));
+			buckets.put(key(g, h), b);
+			frontier.put(((long) (g+h) << 32) | g, b);
+		}
+		return b;
+	}
+
+	/**
+	 * Delete the files and the directory of the search.
+	 */
+	private void deleteFiles() {
+		if(directory == null) return;
+		try {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for(Path p:files) Files.deleteIfExists(p);
+			}
+			Files.deleteIfExists(directory);
+		} catch (IOException e) {
+			System.out.println("Couldn't delete the files of the external search in "+directory+".");
+		}
+	}
+
+	/**
+	 * @param gs
+	 * @return value of the heuristic, rounded down.
+	 */
+	private int h(GameState gs) {
+		return (int) Math.floor(heuristic.compare(gs, target) + 1e-9);
+	}
+
+	private static long key(int g, int h) {
+		return ((long) g << 32) | (h & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param blank
+	 * @param move, -1 for the root.
+	 * @return the byte of a record holding the blank cell in the low 5 bits and the move plus 1 above them.
+	 */
+	private static byte info(int blank, int move) {
+		return (byte) (blank | (move+1) << 5);
+	}
+
+	private static int blank(byte info) {
+		return info & 0x1F;
+	}
+
+	private static int move(byte info) {
+		return ((info & 0xFF) >>> 5) - 1;
+	}
+
+	private static int compare(long packed, long packedHigh, long otherPacked, long otherPackedHigh) {
+		int c = Long.compare(packedHigh, otherPackedHigh);
+		return c != 0 ? c : Long.compare(packed, otherPacked);
+	}
+
+	/**
+	 * Sort the records of the run between two indexes, both included.
+	 * @param from
+	 * @param to
+	 */
+	private void quickSort(int from, int to) {
+		while(to-from > 16) {
+			int mid = (from+to) >>> 1;
+			// median of three as the pivot
+			if(compareRun(mid, from) < 0) swap(mid, from);
+			if(compareRun(to, from) < 0) swap(to, from);
+			if(compareRun(to, mid) < 0) swap(to, mid);
+			long pivot = runPacked[mid];
+			long pivotHigh = runPackedHigh[mid];
+			int i = from;
+			int j = to;
+			while(i <= j) {
+				while(compare(runPacked[i], runPackedHigh[i], pivot, pivotHigh) < 0) i++;
+				while(compare(runPacked[j], runPackedHigh[j], pivot, pivotHigh) > 0) j--;
+				if(i <= j) swap(i++, j--);
+			}
+			// the smaller part is sorted recursively, the larger one by the loop
+			if(j-from < to-i) {
+				quickSort(from, j);
+				from = i;
+			} else {
+				quickSort(i, to);
+				to = j;
+			}
+		}
+		for(int i = from+1; i <= to; i++) {
+			for(int j = i; j > from && compareRun(j, j-1) < 0; j--) swap(j, j-1);
+		}
+	}
+
+	private int compareRun(int i, int j) {
+		return compare(runPacked[i], runPackedHigh[i], runPacked[j], runPackedHigh[j]);
+	}
+
+	private void swap(int i, int j) {
+		long p = runPacked[i];
+		runPacked[i] = runPacked[j];
+		runPacked[j] = p;
+		p = runPackedHigh[i];
+		runPackedHigh[i] = runPackedHigh[j];
+		runPackedHigh[j] = p;
+		byte b = runInfo[i];
+		runInfo[i] = runInfo[j];
+		runInfo[j] = b;
+	}
+
+	/**
+	 * Reads the records of a file in order, mapping a segment of the file into memory at a time.
+	 */
+	private static class RecordReader implements Closeable {
+		private FileChannel channel;
+		private long size;
+		private long position;
+		private MappedByteBuffer map;
+		private long mapStart;
+
+		long packed;
+		long packedHigh;
+		byte info;
+
+		RecordReader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			size = channel.size()/RECORD*RECORD;
+			position = 0;
+		}
+
+		/**
+		 * Read the next record into the fields.
+		 * @return false at the end of the file.
+		 */
+		boolean next() {
+			if(position >= size) return false;
+			try {
+				if(map == null || position+RECORD > mapStart+map.capacity()) {
+					mapStart = position;
+					map = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, Math.min((long) SEGMENT_RECORDS*RECORD, size-position));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			int i = (int) (position-mapStart);
+			packed = map.getLong(i);
+			packedHigh = map.getLong(i+8);
+			info = map.get(i+16);
+			position += RECORD;
+			return true;
+		}
+
+		boolean isOpen() {
+			return channel != null;
+		}
+
+		public void close() {
+			if(channel == null) return;
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// only read from
+			}
+			channel = null;
+			map = null;
+		}
+	}
+
+	/**
+	 * Appends records to a file through a direct buffer.
+	 */
+	private static class RecordWriter implements Closeable {
+		private FileChannel channel;
+		private ByteBuffer buffer;
+
+		RecordWriter(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			buffer = ByteBuffer.allocateDirect(WRITE_BUFFER - WRITE_BUFFER%RECORD);
+		}
+
+		void write(long packed, long packedHigh, byte info) throws IOException {
+			if(buffer.remaining() < RECORD) flush();
+			buffer.putLong(packed);
+			buffer.putLong(packedHigh);
+			buffer.put(info);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+
+		public void close() throws IOException {
+			flush();
+			channel.close();
+		}
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+}
@@ -1,6 +1,10 @@
 /**
  * Instances of this class represent a specific puzzle configuration.
  * The configuration can be changed by method .move[Direction]() executed on the instance.
+ *
+ * Internally the board is packed into two longs, 4 or 5 bits per cell as given by the BoardSize,
+ * so that copying, comparing and hashing a configuration are a few word operations.
+ * Boards of up to 16 cells fit into the low word alone.
  */
 public class GameState {
 	
@@ -14,81 +18,280 @@ public class GameState {
 	 *   * - - - x
 	 *     0 1 2
 	 * 0 represents the blank tile
+	 *
+	 * The cells are packed in the reading order (left to right, starting with the top line),
+	 * cell with index i = (height-1-y)*width+x occupies the bits from i*bits to i*bits+bits-1
+	 * counting from the lowest bit of 'packed' and continuing in 'packedHigh'.
 	 */
-	private int tiles[][];
+	private long packed;
+	private long packedHigh;
 	
 	/**
-	 * Private Location object describing current location of the blank tile.
+	 * Cached index of the cell holding the blank tile.
 	 */
-	private Location blank_loc;
+	private int blank;
+	
+	/**
+	 * Dimensions of the grid.
+	 */
+	private BoardSize size;
 	
 	/**
 	 * Constructor.
 	 * @param tiles, int[][] initial puzzle configuration.
 	 */
 	GameState(int[][] tiles){
-		this.tiles = tiles.clone();
-		
-		searching:
-		for(int i = 0; i<tiles.length;i++) {
-			for(int j = 0; j<tiles[i].length; j++) {
-				if (tiles[i][j] == 0) {
-					blank_loc = new Location(i,j);
-					break searching;
-				}
+		size = BoardSize.of(tiles.length, tiles[0].length);
+		blank = -1;
+		for(int x = 0; x<size.width; x++) {
+			for(int y = 0; y<size.height; y++) {
+				int i = (size.height-1-y)*size.width+x;
+				write(i, tiles[x][y]);
+				if (tiles[x][y] == 0) blank = i;
 			}
 		}
 	}
+	
+	/**
+	 * Constructor.
+	 * @param size, dimensions of the grid.
+	 * @param cells, tile IDs in the reading order, left to right starting with the top line.
+	 */
+	GameState(BoardSize size, int[] cells){
+		this.size = size;
+		blank = -1;
+		for(int i = 0; i<size.cells; i++) {
+			write(i, cells[i]);
+			if (cells[i] == 0) blank = i;
+		}
+	}
+	
+	/**
+	 * Constructor from an already packed configuration.
+	 * @param size, dimensions of the grid.
+	 * @param packed, the low word of the packed configuration.
+	 * @param packedHigh, the high word of the packed configuration.
+	 * @param blank, index of the cell holding the blank tile.
+	 */
+	GameState(BoardSize size, long packed, long packedHigh, int blank){
+		this.size = size;
+		this.packed = packed;
+		this.packedHigh = packedHigh;
+		this.blank = blank;
+	}
+	
+	/**
+	 * @return true if the blank tile can move down.
+	 */
+	boolean canMoveDown() {
+		return size.move(BoardSize.DOWN, blank) >= 0;
+	}
 	/**
 	 * Move the blank tile down.
 	 * @throws CannotExecuteException if the tile cannot move down.
 	 */
 	void moveDown() throws CannotExecuteException {
-		if (blank_loc.y == 0) throw new CannotExecuteException("Goes off the map");
+		if (!canMoveDown()) throw new CannotExecuteException("Goes off the map");
 		
-		tiles[blank_loc.x][blank_loc.y] = tiles[blank_loc.x][blank_loc.y-1];
-		tiles[blank_loc.x][blank_loc.y-1] = 0; 
-		blank_loc.y--;
+		slide(size.move(BoardSize.DOWN, blank));
+	}
+	/**
+	 * @return true if the blank tile can move up.
+	 */
+	boolean canMoveUp() {
+		return size.move(BoardSize.UP, blank) >= 0;
 	}
 	/**
 	 * Move the blank tile up.
 	 * @throws CannotExecuteException if the tile cannot move up.
 	 */
 	void moveUp() throws CannotExecuteException {
-		if (blank_loc.y+1 == tiles[blank_loc.x].length) throw new CannotExecuteException("Goes off the map");
+		if (!canMoveUp()) throw new CannotExecuteException("Goes off the map");
 		
-		tiles[blank_loc.x][blank_loc.y] = tiles[blank_loc.x][blank_loc.y+1];
-		tiles[blank_loc.x][blank_loc.y+1] = 0;
-		blank_loc.y++;
+		slide(size.move(BoardSize.UP, blank));
+	}
+	/**
+	 * @return true if the blank tile can move left.
+	 */
+	boolean canMoveLeft() {
+		return size.move(BoardSize.LEFT, blank) >= 0;
 	}
 	/**
 	 * Move the blank tile left.
 	 * @throws CannotExecuteException if the tile cannot move left.
 	 */
 	void moveLeft() throws CannotExecuteException {
-		if (blank_loc.x == 0) throw new CannotExecuteException("Goes off the map");
+		if (!canMoveLeft()) throw new CannotExecuteException("Goes off the map");
 		
-		tiles[blank_loc.x][blank_loc.y] = tiles[blank_loc.x-1][blank_loc.y];
-		tiles[blank_loc.x-1][blank_loc.y] = 0;
-		blank_loc.x--;
+		slide(size.move(BoardSize.LEFT, blank));
+	}
+	/**
+	 * @return true if the blank tile can move right.
+	 */
+	boolean canMoveRight() {
+		return size.move(BoardSize.RIGHT, blank) >= 0;
 	}
 	/**
 	 * Move the blank tile right.
 	 * @throws CannotExecuteException if the tile cannot move right.
 	 */
 	void moveRight() throws CannotExecuteException {
-		if (blank_loc.x+1 == tiles.length) throw new CannotExecuteException("Goes off the map");
+		if (!canMoveRight()) throw new CannotExecuteException("Goes off the map");
 		
-		tiles[blank_loc.x][blank_loc.y] = tiles[blank_loc.x+1][blank_loc.y];
-		tiles[blank_loc.x+1][blank_loc.y] = 0;
-		blank_loc.x++;		
+		slide(size.move(BoardSize.RIGHT, blank));
+	}
+	
+	/**
+	 * Move the tile at a cell next to the blank tile into the blank cell.
+	 * The caller is responsible for the cells being neighbours.
+	 * @param cell, index of the cell holding the tile to be moved.
+	 */
+	void slide(int cell) {
+		write(blank, tileAt(cell));
+		write(cell, 0);
+		blank = cell;
+	}
+	
+	/**
+	 * Write the configurations one move away into a buffer.
+	 * The move undoing the previous one is left out, as it leads back to the parent configuration.
+	 * The configuration itself is left unchanged.
+	 * @param lastMove, direction of the move which produced this configuration, -1 if there was none.
+	 * @param out, the buffer.
+	 */
+	void successors(int lastMove, Successors out) {
+		long p = packed;
+		long ph = packedHigh;
+		int b = blank;
+		int n = 0;
+		for(int move:size.legalMoves(b)) {
+			if(move == BoardSize.UP-lastMove) continue;
+			int cell = size.move(move, b);
+			slide(cell);
+			out.packed[n] = packed;
+			out.packedHigh[n] = packedHigh;
+			out.blank[n] = cell;
+			out.move[n] = move;
+			n++;
+			set(p, ph, b);
+		}
+		out.count = n;
 	}
 	
 	/**
-	 * Return a pointer to the tiles representing the internal configuration.
+	 * Replace the configuration.
+	 * @param packed, the low word of the packed configuration.
+	 * @param packedHigh, the high word of the packed configuration.
+	 * @param blank, index of the cell holding the blank tile.
+	 */
+	void set(long packed, long packedHigh, int blank) {
+		this.packed = packed;
+		this.packedHigh = packedHigh;
+		this.blank = blank;
+	}
+	
+	/**
+	 * Get the tile stored in a cell.
+	 * @param i, index of the cell.
+	 * @return the tile ID.
+	 */
+	int tileAt(int i) {
+		int off = i*size.bits;
+		long v;
+		if(off >= 64) {
+			v = packedHigh >>> (off-64);
+		} else {
+			v = packed >>> off;
+			if(off+size.bits > 64) v |= packedHigh << (64-off);
+		}
+		return (int) (v & ((1L<<size.bits)-1));
+	}
+	
+	/**
+	 * Store a tile in a cell.
+	 * @param i, index of the cell.
+	 * @param t, the tile ID.
+	 */
+	private void write(int i, long t) {
+		int off = i*size.bits;
+		long mask = (1L<<size.bits)-1;
+		if(off < 64) {
+			packed = (packed & ~(mask << off)) | (t << off);
+		}
+		if(off+size.bits > 64) {
+			int s = off-64;
+			if(s >= 0) packedHigh = (packedHigh & ~(mask << s)) | (t << s);
+			else packedHigh = (packedHigh & ~(mask >>> -s)) | (t >>> -s);
+		}
+	}
+	
+	// packed operations on boards of at most 16 cells, held in a single long
+	
+	/**
+	 * Get the tile stored in a cell of a packed configuration.
+	 * @param packed, the packed configuration.
+	 * @param i, index of the cell.
+	 * @return the tile ID.
+	 */
+	static int tileAt(long packed, int i) {
+		return (int) ((packed >>> (4*i)) & 0xF);
+	}
+	
+	/**
+	 * Move the tile at cell 'to' of a packed configuration into the empty cell 'blank'.
+	 * The caller is responsible for the cells being neighbours.
+	 * @param packed, the packed configuration.
+	 * @param blank, index of the blank tile.
+	 * @param to, index of the tile swapped with the blank tile.
+	 * @return the new packed configuration, the blank tile is at 'to'.
+	 */
+	static long slide(long packed, int blank, int to) {
+		long tile = (packed >>> (4*to)) & 0xF;
+		return (packed & ~(0xFL << (4*to))) | (tile << (4*blank));
+	}
+	
+	/**
+	 * Return the dimensions of the grid.
+	 * @return BoardSize
+	 */
+	BoardSize getSize() {
+		return size;
+	}
+	
+	/**
+	 * Return the low word of the packed configuration.
+	 * This is the whole configuration for boards of up to 16 cells.
+	 * @return long
+	 */
+	long getPacked() {
+		return packed;
+	}
+	
+	/**
+	 * Return the high word of the packed configuration.
+	 * @return long, 0 for boards of up to 16 cells.
+	 */
+	long getPackedHigh() {
+		return packedHigh;
+	}
+	
+	/**
+	 * Return index of the cell holding the blank tile.
+	 * @return int
+	 */
+	int getBlankIndex() {
+		return blank;
+	}
+	
+	/**
+	 * Return a copy of the tiles representing the internal configuration.
 	 * @return int[][]
 	 */
 	public int[][] getTiles() {
+		int[][] tiles = new int[size.width][size.height];
+		for(int i = 0; i<size.cells; i++) {
+			tiles[size.x(i)][size.y(i)] = tileAt(i);
+		}
 		return tiles;
 	}
 	
@@ -98,12 +301,21 @@ public class GameState {
 	 * @return location of the tile. If the tile is not withing the puzzle the location(-1,-1) is returned.
 	 */
 	public Location getTileLocation(int t) {
-		for(int i = 0; i<tiles.length; i++) {
-			for(int j = 0; j<tiles[i].length; j++) {
-				if(tiles[i][j]==t) return new Location(i,j);
-			}
+		int i = getTileIndex(t);
+		if(i == -1) return new Location(-1,-1);
+		return new Location(size.x(i), size.y(i));
+	}
+	
+	/**
+	 * Get index of the cell holding a tile with a matching ID.
+	 * @param t, tiles ID
+	 * @return index of the cell, -1 if the tile is not within the puzzle.
+	 */
+	int getTileIndex(int t) {
+		for(int i = 0; i<size.cells; i++) {
+			if(tileAt(i)==t) return i;
 		}
-		return new Location(-1,-1);
+		return -1;
 	}
 	
 	//overriden methods
@@ -111,48 +323,28 @@ public class GameState {
 	public boolean equals(Object obj) {
 		if(obj == null) return false;
 		if(obj.getClass() != this.getClass()) return false;
-		int[][] oTiles = ((GameState) obj).getTiles();
-		
-		if(tiles.length != oTiles.length) return false;
-		
-		for(int i = 0; i<tiles.length;i++) {
-			if(tiles[i].length != oTiles[i].length) return false;
-			for(int j = 0; j<tiles[i].length; j++) {
-				if (tiles[i][j] != oTiles[i][j]) {
-					return false;
-				}
-			}
-		}
-		return true;
+		GameState o = (GameState) obj;
+		return packed == o.packed && packedHigh == o.packedHigh && size == o.size;
+	}
+	
+	public int hashCode() {
+		return Long.hashCode((packed ^ packedHigh * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L);
 	}
 	
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("[\n");
 		
-		sb.append("\t[");
-		sb.append(tiles[0][2]);
-		sb.append(",");
-		sb.append(tiles[1][2]);
-		sb.append(",");
-		sb.append(tiles[2][2]);
-		sb.append("],\n");
-		
-		sb.append("\t[");
-		sb.append(tiles[0][1]);
-		sb.append(",");
-		sb.append(tiles[1][1]);
-		sb.append(",");
-		sb.append(tiles[2][1]);
-		sb.append("],\n");
-		
-		sb.append("\t[");
-		sb.append(tiles[0][0]);
-		sb.append(",");
-		sb.append(tiles[1][0]);
-		sb.append(",");
-		sb.append(tiles[2][0]);
-		sb.append("]\n");
+		for(int row = 0; row<size.height; row++) {
+			sb.append("\t[");
+			for(int col = 0; col<size.width; col++) {
+				if(col>0) sb.append(",");
+				sb.append(tileAt(row*size.width+col));
+			}
+			sb.append("]");
+			if(row<size.height-1) sb.append(",");
+			sb.append("\n");
+		}
 		
 		sb.append("]");
 		
@@ -160,12 +352,6 @@ public class GameState {
 	}
 	
 	public GameState clone() {
-		int[][] newtiles = new int[tiles.length][tiles[0].length];
-		for(int i = 0; i< tiles.length; i++) {
-			for(int j = 0; j < tiles[i].length; j++) {
-				newtiles[i][j] = tiles[i][j];
-			}
-		}
-		return new GameState(newtiles);
+		return new GameState(size, packed, packedHigh, blank);
 	}
 }
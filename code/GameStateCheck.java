@@ -0,0 +1,105 @@
+import java.util.Random;
+
+/**
+ * Checks the packed layout of GameState: packing and unpacking the tiles, and sliding them,
+ * on 3x3, 4x4 and 5x5 boards, the last ones using the high word.
+ * Each board is compared with a plain array of tile IDs kept alongside.
+ * Run with "java -cp 8-puzzle.jar GameStateCheck", a failed check is printed and the exit status is 1.
+ */
+class GameStateCheck {
+
+	private static final int BOARDS = 200;
+	private static final int MOVES = 200;
+
+	public static void main(String[] args) {
+		Random random = new Random(1);
+		int[][] sizes = {{3,3}, {4,4}, {5,5}};
+		for(int[] s:sizes) {
+			BoardSize size = BoardSize.of(s[0], s[1]);
+			for(int k = 0; k<BOARDS; k++) {
+				check(size, shuffled(size, random), random);
+			}
+		}
+		System.out.println("GameState packing checked on 3x3, 4x4 and 5x5 boards.");
+	}
+
+	/**
+	 * @param size
+	 * @param random
+	 * @return the tile IDs of every cell in a random order.
+	 */
+	private static int[] shuffled(BoardSize size, Random random) {
+		int[] cells = new int[size.cells];
+		for(int i = 0; i<cells.length; i++) cells[i] = i;
+		for(int i = cells.length-1; i>0; i--) {
+			int j = random.nextInt(i+1);
+			int t = cells[i];
+			cells[i] = cells[j];
+			cells[j] = t;
+		}
+		return cells;
+	}
+
+	/**
+	 * Pack a board, unpack it in every way and slide its tiles around.
+	 * @param size
+	 * @param cells, tile IDs in the reading order.
+	 * @param random
+	 */
+	private static void check(BoardSize size, int[] cells, Random random) {
+		GameState gs = new GameState(size, cells);
+		compare(gs, cells, "packing");
+		GameState original = gs.clone();
+		compare(new GameState(gs.getTiles()), cells, "getTiles");
+		compare(new GameState(size, gs.getPacked(), gs.getPackedHigh(), gs.getBlankIndex()), cells, "the packed constructor");
+
+		int blank = gs.getBlankIndex();
+		int[] path = new int[MOVES];
+		for(int m = 0; m<MOVES; m++) {
+			int[] legal = size.legalMoves(blank);
+			int move = legal[random.nextInt(legal.length)];
+			int cell = size.move(move, blank);
+			if(size.cells <= 16) {
+				long slid = GameState.slide(gs.getPacked(), blank, cell);
+				if(GameState.tileAt(slid, blank) != cells[cell] || GameState.tileAt(slid, cell) != 0) {
+					fail(size, "the static slide");
+				}
+			}
+			gs.slide(cell);
+			cells[blank] = cells[cell];
+			cells[cell] = 0;
+			path[m] = blank;
+			blank = cell;
+			compare(gs, cells, "slide");
+		}
+		// sliding the tiles back restores the board
+		for(int m = MOVES-1; m>=0; m--) gs.slide(path[m]);
+		if(!gs.equals(original) || gs.hashCode() != original.hashCode()) fail(size, "sliding back");
+	}
+
+	/**
+	 * Compare a board with the tile IDs it should hold.
+	 * @param gs
+	 * @param cells
+	 * @param step, named in the message of a failure.
+	 */
+	private static void compare(GameState gs, int[] cells, String step) {
+		BoardSize size = gs.getSize();
+		for(int i = 0; i<cells.length; i++) {
+			if(gs.tileAt(i) != cells[i]) fail(size, step);
+			if(size.cells <= 16 && GameState.tileAt(gs.getPacked(), i) != cells[i]) fail(size, step+" in the low word");
+			if(cells[i] == 0 && gs.getBlankIndex() != i) fail(size, step+" of the blank tile");
+		}
+		if(size.cells <= 16 && gs.getPackedHigh() != 0) fail(size, step+", the high word is not empty");
+		if(!gs.equals(gs.clone()) || gs.hashCode() != gs.clone().hashCode()) fail(size, "clone after "+step);
+	}
+
+	/**
+	 * @param size
+	 * @param step
+	 */
+	private static void fail(BoardSize size, String step) {
+		System.err.println("GameState check failed on a "+size.width+"x"+size.height+" board: "+step+".");
+		System.exit(1);
+	}
+}
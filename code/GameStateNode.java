@@ -93,49 +93,42 @@ public class GameStateNode {
 	 */
 	private void measure(GameState target) {
 		distance = (double) 0;
-		distance += heuristic.compare(gs, target);
+		if(heuristic instanceof IncrementalHeuristic && parent != null && target.equals(parent.lastTargetGS)) {
+			// the tile next to the parent's blank cell moved into it
+			int from = gs.getBlankIndex();
+			int to = parent.gs.getBlankIndex();
+			int tile = gs.tileAt(to);
+			double parentValue = parent.distance - parent.depth;
+			distance += ((IncrementalHeuristic) heuristic).update(parentValue, tile, from, to, target);
+		} else {
+			distance += heuristic.compare(gs, target);
+		}
 		distance += depth;
 	}
 	
 	/**
 	 * Public method that makes the node create all viable children.
+	 * The moves are read from the table of legal moves of the blank tile,
+	 * and the move leading back to the parent's configuration is left out.
 	 * @return int representing the number of the children created.
 	 */
 	public int makeChildren() {
 		numberOfChildren = 0;
-		GameState childGS;
-		
-		try {
-			childGS = gs.clone();
-			childGS.moveDown();
-			children[numberOfChildren] = new GameStateNode(this, childGS, heuristic);
-			numberOfChildren++;
-		} catch(CannotExecuteException e) {
-			
-		}
-		try {
-			childGS = gs.clone();
-			childGS.moveLeft();
-			children[numberOfChildren] = new GameStateNode(this, childGS, heuristic);
-			numberOfChildren++;
-		} catch(CannotExecuteException e) {
-			
-		}
-		try {
-			childGS = gs.clone();
-			childGS.moveRight();
-			children[numberOfChildren] = new GameStateNode(this, childGS, heuristic);
-			numberOfChildren++;
-		} catch(CannotExecuteException e) {
-			
+		BoardSize size = gs.getSize();
+		int blank = gs.getBlankIndex();
+		int lastMove = -1;
+		if(parent != null) {
+			int parentBlank = parent.gs.getBlankIndex();
+			for(int move:size.legalMoves(parentBlank)) {
+				if(size.move(move, parentBlank) == blank) lastMove = move;
+			}
 		}
-		try {
-			childGS = gs.clone();
-			childGS.moveUp();
+		for(int move:size.legalMoves(blank)) {
+			if(move == BoardSize.UP-lastMove) continue;
+			GameState childGS = gs.clone();
+			childGS.slide(size.move(move, blank));
 			children[numberOfChildren] = new GameStateNode(this, childGS, heuristic);
 			numberOfChildren++;
-		} catch(CannotExecuteException e) {
-			
 		}
 		return numberOfChildren;
 	}
@@ -198,6 +191,27 @@ public class GameStateNode {
 			return children[i];
 		}
 	}
+	/**
+	 * Get the target the node's distance was last measured against.
+	 * @return GameState, null if the distance has not been measured yet.
+	 */
+	public GameState getTarget() {
+		return lastTargetGS;
+	}
+	/**
+	 * Get the heuristic used to measure the node's distance.
+	 * @return HeuristicMethod
+	 */
+	public HeuristicMethod getHeuristic() {
+		return heuristic;
+	}
+	/**
+	 * Get the GameState contained in the node.
+	 * @return GameState
+	 */
+	public GameState getGameState() {
+		return gs;
+	}
 	public String toString() {
 		return gs.toString();
 	}
@@ -0,0 +1,48 @@
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Open list backed by a binary heap.
+ * Works for any heuristic, including real valued ones. Ties are broken arbitrarily.
+ */
+public class HeapOpenList implements OpenList {
+
+	private PriorityQueue<GameStateNode> q;
+
+	/**
+	 * Constructor.
+	 * Distances differing by less than 0.1 are considered equal.
+	 */
+	HeapOpenList(){
+		Comparator<GameStateNode> c = (GameStateNode g, GameStateNode h)->{
+				double d = g.getDistance()-h.getDistance();
+				if(d > 0.1) return 1;
+				if(d < -0.1) return -1;
+				return 0;
+			};
+		q = new PriorityQueue<GameStateNode>(c);
+	}
+	/**
+	 * Constructor.
+	 * @param c, comparator ordering the nodes by a priority other than the distance.
+	 */
+	HeapOpenList(Comparator<GameStateNode> c){
+		q = new PriorityQueue<GameStateNode>(c);
+	}
+
+	public void add(GameStateNode gsn) {
+		q.add(gsn);
+	}
+
+	public GameStateNode peek() {
+		return q.peek();
+	}
+
+	public GameStateNode poll() {
+		return q.poll();
+	}
+
+	public int size() {
+		return q.size();
+	}
+}
@@ -0,0 +1,182 @@
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An instances of this class represent an iterative deepening A* attempt to solve a specific 8-puzzle.
+ * Only the current path is kept in memory, a single board is changed and restored as the search
+ * moves down and up the tree, so the memory used depends on the depth limit only.
+ * The heuristic is expected to be admissible, thresholds above the depth limit are not searched.
+ * Can be ran as a thread.
+ */
+public class IDAStar implements SearchEngine {
+
+	private static final double EPSILON = 1e-9;
+
+	private GameStateNode root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private IncrementalHeuristic incremental;
+	private String name;
+	private int depthLimit;
+
+	private GameState board;
+	private BoardSize size;
+	private long[] pathPacked;
+	private long[] pathPackedHigh;
+	private int[] pathBlank;
+	private double threshold;
+	private double nextThreshold;
+	private SearchStatistics stats;
+	private Budget budget;
+	private int count;
+	private boolean stopped;
+
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 */
+	IDAStar(GameStateNode initialState, String name, int depthLimit){
+		this.root = initialState;
+		this.target = initialState.getTarget();
+		this.heuristic = initialState.getHeuristic();
+		if(heuristic instanceof IncrementalHeuristic) incremental = (IncrementalHeuristic) heuristic;
+		this.name = name;
+		this.depthLimit = depthLimit;
+		solution = null;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+		stats.start();
+		budget.start();
+		count = 0;
+		stopped = false;
+
+		board = root.getGameState().clone();
+		size = board.getSize();
+		pathPacked = new long[depthLimit+1];
+		pathPackedHigh = new long[depthLimit+1];
+		pathBlank = new int[depthLimit+1];
+		threshold = root.getDistance();
+
+		while(true) {
+			nextThreshold = Double.POSITIVE_INFINITY;
+			if(search(0, -1, heuristic.compare(board, target))) break;
+			if(stopped) break;
+			// no solution can be found within the depth limit
+			if(nextThreshold > depthLimit + EPSILON) break;
+			threshold = nextThreshold;
+			Progress.report(name, "raised the threshold to "+threshold+".");
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		stats.finish(solution == null ? -1 : solution.getSteps());
+		if(stopped) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Depth first search of the board's subtree bounded by the current threshold.
+	 * @param g, number of steps taken to reach the board.
+	 * @param lastMove, the move which produced the board, -1 for the root.
+	 * @param h, value of the heuristic for the board.
+	 * @return true if the solution was found, false as well if the search was stopped.
+	 */
+	private boolean search(int g, int lastMove, double h) {
+		double f = g + h;
+		if(f > threshold + EPSILON) {
+			if(f < nextThreshold) nextThreshold = f;
+			return false;
+		}
+		pathPacked[g] = board.getPacked();
+		pathPackedHigh[g] = board.getPackedHigh();
+		pathBlank[g] = board.getBlankIndex();
+		if(board.equals(target)) {
+			makeSolution(g);
+			return true;
+		}
+		if(g >= depthLimit) return false;
+		// only the current path is kept, the memory does not grow
+		if(stopped) return false;
+		if(++count % Budget.CHECK_INTERVAL == 0 && budget.exceeded(stats.getExpanded(), 0)) {
+			stopped = true;
+			return false;
+		}
+		stats.expanded(threshold);
+
+		int blank = board.getBlankIndex();
+		for(int move:size.legalMoves(blank)) {
+			// never undo the previous move
+			if(move == BoardSize.UP-lastMove) continue;
+			int cell = size.move(move, blank);
+			board.slide(cell);
+			stats.generated(1);
+			if(search(g+1, move, measure(h, blank))) return true;
+			board.slide(blank);
+		}
+		return false;
+	}
+
+	/**
+	 * Value of the heuristic for the board after a move.
+	 * @param parentValue, value before the move.
+	 * @param parentBlank, cell of the blank tile before the move.
+	 * @return double
+	 */
+	private double measure(double parentValue, int parentBlank) {
+		if(incremental == null) return heuristic.compare(board, target);
+		// the tile moved from the cell the blank tile is in now into the blank cell of the parent
+		int from = board.getBlankIndex();
+		int tile = board.tileAt(parentBlank);
+		return incremental.update(parentValue, tile, from, parentBlank, target);
+	}
+
+	/**
+	 * Turn the current path into a chain of nodes.
+	 * @param length, number of steps of the path.
+	 */
+	private void makeSolution(int length) {
+		GameStateNode node = root;
+		for(int i = 1; i <= length; i++) {
+			node = new GameStateNode(node, new GameState(size, pathPacked[i], pathPackedHigh[i], pathBlank[i]), heuristic);
+		}
+		solution = node;
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	/**
+	 * Get the counters describing the cost of the search, summed over all iterations.
+	 * The time of an f-layer is the time of the iteration with that threshold.
+	 * @return SearchStatistics
+	 */
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+}
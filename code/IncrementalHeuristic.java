@@ -0,0 +1,17 @@
+/**
+ * An interface for heuristics whose value can be updated after a single move
+ * instead of being computed for the whole configuration.
+ */
+public interface IncrementalHeuristic extends HeuristicMethod {
+	/**
+	 * Update the value of the heuristic after a tile moved into the blank cell.
+	 * The blank tile moved the other way, from 'to' to 'from'.
+	 * @param parentValue, value for the configuration before the move.
+	 * @param tile, ID of the tile that moved.
+	 * @param from, index of the cell the tile moved from.
+	 * @param to, index of the cell the tile moved to.
+	 * @param target, the target game state.
+	 * @return value for the configuration after the move.
+	 */
+	double update(double parentValue, int tile, int from, int to, GameState target);
+}
@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+/**
+ * Open list of node indexes for integer valued heuristics.
+ * Nodes are kept in an array of buckets, one per distance (f) value.
+ * Every bucket is subdivided by the number of steps (g) into LIFO stacks,
+ * so both insertion and removal of the best node take constant time
+ * and ties are broken deterministically, the deepest node being returned first.
+ */
+public class IndexBucketOpenList implements IndexOpenList {
+
+	/**
+	 * All nodes sharing a single distance value.
+	 */
+	private static class Bucket {
+		int[][] stacks = new int[0][];
+		int[] tops = new int[0];
+		int size = 0;
+
+		void push(int node, int g) {
+			if(g >= stacks.length) {
+				int n = Math.max(g+1, stacks.length*2);
+				stacks = Arrays.copyOf(stacks, n);
+				tops = Arrays.copyOf(tops, n);
+			}
+			if(stacks[g] == null) stacks[g] = new int[16];
+			if(tops[g] == stacks[g].length) stacks[g] = Arrays.copyOf(stacks[g], tops[g]*2);
+			stacks[g][tops[g]++] = node;
+			size++;
+		}
+	}
+
+	private NodeArena arena;
+	private Bucket[] buckets;
+	private int minF;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * @param arena, holds the nodes inserted.
+	 */
+	IndexBucketOpenList(NodeArena arena){
+		this.arena = arena;
+		buckets = new Bucket[32];
+		minF = buckets.length;
+		size = 0;
+	}
+
+	public void add(int node) {
+		int f = (int) Math.round(arena.f(node));
+		if(f >= buckets.length) buckets = Arrays.copyOf(buckets, Math.max(f+1, buckets.length*2));
+		if(buckets[f] == null) buckets[f] = new Bucket();
+		buckets[f].push(node, arena.g(node));
+		if(f < minF) minF = f;
+		size++;
+	}
+
+	public int peek() {
+		return take(false);
+	}
+
+	public int poll() {
+		return take(true);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Locate the best node.
+	 * @param remove, whether the node should be removed.
+	 * @return index of the best node, -1 if the list is empty.
+	 */
+	private int take(boolean remove) {
+		if(size == 0) return -1;
+		while(buckets[minF] == null || buckets[minF].size == 0) minF++;
+		Bucket b = buckets[minF];
+		int g = b.tops.length-1;
+		while(b.tops[g] == 0) g--;
+		if(!remove) return b.stacks[g][b.tops[g]-1];
+		b.size--;
+		size--;
+		return b.stacks[g][--b.tops[g]];
+	}
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * Open list of node indexes backed by a binary heap.
+ * Works for any heuristic, including real valued ones. Ties are broken arbitrarily.
+ * Distances differing by less than 0.1 are considered equal.
+ *
+ * The value of the heuristic may be weighted, the nodes being ordered by g + weight*h.
+ */
+public class IndexHeapOpenList implements IndexOpenList {
+
+	private NodeArena arena;
+	private double weight;
+	private int[] heap;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * @param arena, holds the nodes inserted.
+	 */
+	IndexHeapOpenList(NodeArena arena){
+		this(arena, 1);
+	}
+	/**
+	 * Constructor.
+	 * @param arena, holds the nodes inserted.
+	 * @param weight, of the value of the heuristic.
+	 */
+	IndexHeapOpenList(NodeArena arena, double weight){
+		this.arena = arena;
+		this.weight = weight;
+		heap = new int[64];
+		size = 0;
+	}
+
+	/**
+	 * Change the weight of the heuristic and reorder the nodes.
+	 * @param weight
+	 */
+	void setWeight(double weight) {
+		this.weight = weight;
+		int n = size;
+		size = 0;
+		for(int k = 0; k<n; k++) add(heap[k]);
+	}
+
+	/**
+	 * @param node
+	 * @return the priority of the node, g + weight*h.
+	 */
+	double priority(int node) {
+		return arena.g(node) + weight*arena.h(node);
+	}
+
+	/**
+	 * Get a node without removing it, the nodes are in no particular order.
+	 * @param k, between 0 and size()-1.
+	 * @return index of the node.
+	 */
+	int get(int k) {
+		return heap[k];
+	}
+
+	public void add(int node) {
+		if(size == heap.length) heap = Arrays.copyOf(heap, size*2);
+		int i = size++;
+		double f = priority(node);
+		while(i > 0) {
+			int p = (i-1)/2;
+			if(compare(f, priority(heap[p])) >= 0) break;
+			heap[i] = heap[p];
+			i = p;
+		}
+		heap[i] = node;
+	}
+
+	public int peek() {
+		return size == 0 ? -1 : heap[0];
+	}
+
+	public int poll() {
+		if(size == 0) return -1;
+		int top = heap[0];
+		int last = heap[--size];
+		double f = priority(last);
+		int i = 0;
+		while(true) {
+			int c = 2*i+1;
+			if(c >= size) break;
+			if(c+1 < size && compare(priority(heap[c+1]), priority(heap[c])) < 0) c++;
+			if(compare(priority(heap[c]), f) >= 0) break;
+			heap[i] = heap[c];
+			i = c;
+		}
+		heap[i] = last;
+		return top;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param f
+	 * @param g
+	 * @return the order of the distances.
+	 */
+	private static int compare(double f, double g) {
+		double d = f-g;
+		if(d > 0.1) return 1;
+		if(d < -0.1) return -1;
+		return 0;
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * An interface for the open list of a search keeping its nodes in a NodeArena,
+ * a priority queue of node indexes returning the node with the lowest distance first.
+ */
+public interface IndexOpenList {
+	/**
+	 * Insert a node.
+	 * @param node, index of the node to be inserted.
+	 */
+	void add(int node);
+	/**
+	 * @return index of the node to be expanded next without removing it, -1 if the list is empty.
+	 */
+	int peek();
+	/**
+	 * @return index of the node to be expanded next, removed from the list, -1 if the list is empty.
+	 */
+	int poll();
+	/**
+	 * @return number of nodes in the list.
+	 */
+	int size();
+	/**
+	 * @return true if there is no node in the list.
+	 */
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+}
@@ -0,0 +1,20 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event lasting while a search expands the nodes of one f-layer.
+ */
+@Name("puzzle.FLayer")
+@Label("Puzzle f-Layer")
+@Category("Puzzle")
+@Description("Expansion of the nodes with the same whole part of f")
+class LayerEvent extends jdk.jfr.Event {
+	@Label("Name")
+	String name;
+	@Label("f")
+	int f;
+	@Label("Expanded")
+	long expanded;
+}
@@ -0,0 +1,152 @@
+/**
+ * Heuristic adding linear conflicts to the Manhattan distance of all tiles but the blank tile.
+ *
+ * Tiles sharing a line with their cells in the target can only pass each other by leaving the line.
+ * The tiles which never leave it keep their order, so all but the longest run of such tiles in the target order
+ * leave the line, each making two moves the Manhattan distance does not count.
+ * Conflicts in lines and in columns cost moves in different directions and add up.
+ *
+ * The contents of a line are encoded as a number, every cell holding the column of its tile in the target plus 1
+ * if the tile belongs to the line and 0 otherwise, and the conflicts of every possible line are computed
+ * once per target. Evaluating the heuristic then reads a table entry per tile and per line.
+ */
+public class LinearConflictHeuristic implements HeuristicMethod {
+
+	/**
+	 * Largest table of conflicts computed for a line, longer lines are evaluated directly.
+	 */
+	private static final int MAX_TABLE = 1<<20;
+
+	/**
+	 * Tables prepared for a target.
+	 */
+	private static class Tables {
+		final GameState target;
+		final int width;
+		final int height;
+		final int cells;
+		// manhattan[t*cells+i] is the distance of tile t in cell i from its cell in the target
+		final int[] manhattan;
+		// rowCode[t*cells+i] is the contribution of tile t in cell i to the code of the line
+		final long[] rowCode;
+		final long[] columnCode;
+		// conflicts of a line by its code, null if the line is too long
+		final byte[] rowConflicts;
+		final byte[] columnConflicts;
+
+		Tables(GameState target) {
+			this.target = target;
+			BoardSize size = target.getSize();
+			width = size.width;
+			height = size.height;
+			cells = size.cells;
+			manhattan = new int[cells*cells];
+			rowCode = new long[cells*cells];
+			columnCode = new long[cells*cells];
+			for(int t = 1; t<cells; t++) {
+				int goal = target.getTileIndex(t);
+				int goalRow = goal/width;
+				int goalColumn = goal%width;
+				for(int i = 0; i<cells; i++) {
+					int row = i/width;
+					int column = i%width;
+					manhattan[t*cells+i] = Math.abs(row-goalRow) + Math.abs(column-goalColumn);
+					if(row == goalRow) rowCode[t*cells+i] = (goalColumn+1)*power(width+1, column);
+					if(column == goalColumn) columnCode[t*cells+i] = (goalRow+1)*power(height+1, row);
+				}
+			}
+			rowConflicts = table(width);
+			columnConflicts = table(height);
+		}
+	}
+
+	private volatile Tables tables;
+
+	public double compare(GameState gs, GameState target) {
+		Tables tb = tables;
+		if(tb == null || !target.equals(tb.target)) tb = load(target);
+		int w = tb.width;
+		int cells = tb.cells;
+		int d = 0;
+		for(int row = 0; row<tb.height; row++) {
+			long code = 0;
+			for(int i = row*w; i<row*w+w; i++) {
+				int t = gs.tileAt(i);
+				d += tb.manhattan[t*cells+i];
+				code += tb.rowCode[t*cells+i];
+			}
+			d += tb.rowConflicts != null ? tb.rowConflicts[(int) code] : conflicts(code, w);
+		}
+		for(int column = 0; column<w; column++) {
+			long code = 0;
+			for(int i = column; i<cells; i += w) {
+				int t = gs.tileAt(i);
+				code += tb.columnCode[t*cells+i];
+			}
+			d += tb.columnConflicts != null ? tb.columnConflicts[(int) code] : conflicts(code, tb.height);
+		}
+		return d;
+	}
+
+	/**
+	 * Prepare the tables for a target.
+	 * @param target
+	 * @return Tables
+	 */
+	private synchronized Tables load(GameState target) {
+		if(tables == null || !target.equals(tables.target)) tables = new Tables(target);
+		return tables;
+	}
+
+	/**
+	 * Compute the conflicts of every line of a length.
+	 * @param length
+	 * @return table indexed by the code of the line, null if there are too many lines.
+	 */
+	private static byte[] table(int length) {
+		long n = power(length+1, length);
+		if(n > MAX_TABLE) return null;
+		byte[] table = new byte[(int) n];
+		for(int code = 0; code<n; code++) {
+			table[code] = (byte) conflicts(code, length);
+		}
+		return table;
+	}
+
+	/**
+	 * Compute the conflicts of a line.
+	 * @param code, the encoded contents of the line.
+	 * @param length, number of cells in the line.
+	 * @return twice the number of tiles which have to leave the line.
+	 */
+	private static int conflicts(long code, int length) {
+		// longest[k] is the length of the longest increasing run of target positions ending with the k-th cell
+		int[] goals = new int[length];
+		int[] longest = new int[length];
+		int tiles = 0;
+		int best = 0;
+		for(int k = 0; k<length; k++) {
+			goals[k] = (int) (code % (length+1));
+			code /= length+1;
+			if(goals[k] == 0) continue;
+			tiles++;
+			longest[k] = 1;
+			for(int j = 0; j<k; j++) {
+				if(goals[j] != 0 && goals[j] < goals[k] && longest[j]+1 > longest[k]) longest[k] = longest[j]+1;
+			}
+			if(longest[k] > best) best = longest[k];
+		}
+		return 2*(tiles-best);
+	}
+
+	/**
+	 * @param base
+	 * @param exponent
+	 * @return base^exponent
+	 */
+	private static long power(int base, int exponent) {
+		long p = 1;
+		for(int i = 0; i<exponent; i++) p *= base;
+		return p;
+	}
+}
@@ -41,7 +41,7 @@ class Location{
 		 */
 		public static double Euclid(Location a, Location b) {
 			float deltaX = (a.x - b.x);
-			float deltaY = (a.x - b.x);
+			float deltaY = (a.y - b.y);
 			
 			return Math.sqrt(Math.pow(deltaX, 2)+Math.pow(deltaY,2));
 		}
@@ -54,7 +54,7 @@ class Location{
 		 */
 		public static int Manhattan(Location a, Location b) {
 			int deltaX = Math.abs(a.x - b.x);
-			int deltaY = Math.abs(a.x - b.x);
+			int deltaY = Math.abs(a.y - b.y);
 			
 			return deltaX+deltaY;
 		}
@@ -1,17 +1,18 @@
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.File;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Comparator;
-import java.util.PriorityQueue;
-import java.util.Stack;
 import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * An instances of this class represent an attempt to solve a specific 8-puzzle.
  * Can be ran as a thread.
  */
-public class MainBody implements Runnable {
+public class MainBody implements SearchEngine {
 
 	// for running
 	
@@ -20,20 +21,6 @@ public class MainBody implements Runnable {
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		/**
-		 * Internal class for binding an Heuristic function with a name.
-		 *
-		 */
-		class Approach {
-			HeuristicMethod hm;
-			String name;
-			
-			Approach (HeuristicMethod hm, String name){
-				this.hm = hm;
-				this.name = name;
-			}
-		}
-		
 		/* original one presented in the CA
 		int[][] state = { 
 				{8,5,7},
@@ -48,69 +35,75 @@ public class MainBody implements Runnable {
 				{1,6,4}
 				};
 		
-		// get the initial puzzle configuration
+		GameState initialGS = new GameState(state);
+		
+		// the hints are left out in the batch and the daemon mode, the results may be written to the console
+		boolean isBatch = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-b") || args[i].equals("-i"))
+				isBatch = true;
+		}
+		
+		// get a board width
+		int width = 0;
 		int arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-w"))
+				arg = i;
+		}
+		if (arg == -1) {
+			if (!isBatch) System.out.println("You can specify the number of columns with -w tag by a number. By default the board is square.");
+		} else {
+			try {
+				width = Integer.parseInt(args[arg+1]);
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -w tag is not a number.");
+				System.exit(1);
+			}
+		}
+		
+		// get the initial puzzle configuration
+		arg = -1;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].equals("-s"))
 				arg = i;
 		}
 		if (arg == -1) {
-			System.out.println("You can specify an initial state by the -s tag followed by a series of numbers starting with the first line, reading from left to right.");
+			if (!isBatch) System.out.println("You can specify an initial state by the -s tag followed by a series of numbers starting with the first line, reading from left to right.");
 		} else {
-			String s = args[arg+1];
-			
-			//first column, up from bottom
-			state[0][0] = getIntInString(s,6);
-			state[0][1] = getIntInString(s,3);
-			state[0][2] = getIntInString(s,0);
-			
-			//second column, up from bottom
-			state[1][0] = getIntInString(s,7);
-			state[1][1] = getIntInString(s,4);
-			state[1][2] = getIntInString(s,1);
-			
-			//third column, up from bottom
-			state[2][0] = getIntInString(s,8);
-			state[2][1] = getIntInString(s,5);
-			state[2][2] = getIntInString(s,2);
-		}	
-		
-		int[][] targetState = {
-				{6,3,0},
-				{7,4,1},
-				{8,5,2}
-		};
-		
-		// get a target configuration
+			initialGS = parseState(args[arg+1], width);
+			if(initialGS == null) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -s tag is not a puzzle configuration.");
+				System.exit(1);
+			}
+		}
+		
+		// get a target configuration, by default the tiles are ordered with the blank tile first
+		BoardSize size = initialGS.getSize();
+		int[] ordered = new int[size.cells];
+		for (int i = 0; i < ordered.length; i++) {
+			ordered[i] = i;
+		}
+		GameState target = new GameState(size, ordered);
+		
 		arg = -1;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].equals("-t"))
 				arg = i;
 		}
 		if (arg == -1) {
-			System.out.println("You can specify a target state by the -t tag followed by a series of numbers starting with the first line, reading from left to right.");
+			if (!isBatch) System.out.println("You can specify a target state by the -t tag followed by a series of numbers starting with the first line, reading from left to right.");
 		} else {
-			String s = args[arg+1];
-			
-			//first column, up from bottom
-			targetState[0][0] = getIntInString(s,6);
-			targetState[0][1] = getIntInString(s,3);
-			targetState[0][2] = getIntInString(s,0);
-			
-			//second column, up from bottom
-			targetState[1][0] = getIntInString(s,7);
-			targetState[1][1] = getIntInString(s,4);
-			targetState[1][2] = getIntInString(s,1);
-			
-			//third column, up from bottom
-			targetState[2][0] = getIntInString(s,8);
-			targetState[2][1] = getIntInString(s,5);
-			targetState[2][2] = getIntInString(s,2);
+			target = parseState(args[arg+1], width);
+			if(target == null || target.getSize() != size) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -t tag is not a puzzle configuration of the same size as the initial state.");
+				System.exit(1);
+			}
 		}
 		
-		GameState initialGS = new GameState(state);
-		GameState target = new GameState(targetState);
-		
 		// get a depth limit
 		int depth_limit = 0;
 		arg = -1;
@@ -119,7 +112,7 @@ public class MainBody implements Runnable {
 				arg = i;
 		}
 		if (arg == -1) {
-			System.out.println("You can specify a depth limit with -d tag by a number. Default = 14.");
+			if (!isBatch) System.out.println("You can specify a depth limit with -d tag by a number. Default = 14.");
 			depth_limit = 14;
 		} else {
 			try {
@@ -131,57 +124,441 @@ public class MainBody implements Runnable {
 			}
 		}
 		
-		// get methods to be used to solve the puzzle
-		arg = -1;		
-		boolean triv = false; //1
-		boolean EcfZ = false; //2
-		boolean MhfZ = false; //4
-		boolean EcfA = false; //8
-		boolean MhfA = false; //16
+		// get a search mode
+		String mode = "astar";
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-m"))
+				arg = i;
+		}
+		if (arg == -1) {
+			if (!isBatch) System.out.println("You can specify a search mode with -m tag followed by astar, idastar, bidirectional, parallel, weighted, anytime, external, sma, beam or oracle. Default = astar.");
+		} else {
+			mode = args[arg+1];
+			if(!isMode(mode)) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -m tag is not a search mode.");
+				System.exit(1);
+			}
+		}
+		
+		// get a number of threads used by a parallel search
+		int workers = Runtime.getRuntime().availableProcessors();
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-p"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				workers = Integer.parseInt(args[arg+1]);
+				if(workers < 1) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -p tag is not a positive number.");
+				System.exit(1);
+			}
+		} else if (mode.equals("parallel")) {
+			if (!isBatch) System.out.println("You can specify the number of threads of the parallel search with -p tag by a number. Default = "+workers+".");
+		}
+		
+		// get a weight of the heuristic and a deadline
+		double weight = 2;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-e"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				weight = Double.parseDouble(args[arg+1]);
+				if(!(weight >= 1)) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -e tag is not a number of at least 1.");
+				System.exit(1);
+			}
+		} else if (mode.equals("weighted") || mode.equals("anytime")) {
+			if (!isBatch) System.out.println("You can specify the weight of the heuristic with -e tag by a number. Default = "+weight+".");
+		}
+		Duration deadline = Duration.ofSeconds(1);
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-l"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				deadline = Duration.ofMillis(Math.round(Double.parseDouble(args[arg+1])*1000));
+				if(deadline.isNegative() || deadline.isZero()) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -l tag is not a positive number of seconds.");
+				System.exit(1);
+			}
+		} else if (mode.equals("anytime")) {
+			if (!isBatch) System.out.println("You can specify the deadline of the anytime search with -l tag by a number of seconds. Default = 1.");
+		}
+		// get the budget of every search and whether the searches race
+		long maxNodes = 0;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-n"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				maxNodes = Long.parseLong(args[arg+1]);
+				if(maxNodes <= 0) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -n tag is not a positive number of nodes.");
+				System.exit(1);
+			}
+		}
+		long maxBytes = 0;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-a"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				maxBytes = Math.round(Double.parseDouble(args[arg+1])*1_000_000);
+				if(maxBytes <= 0) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -a tag is not a positive number of megabytes.");
+				System.exit(1);
+			}
+		}
+		Duration maxTime = null;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-u"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				maxTime = Duration.ofMillis(Math.round(Double.parseDouble(args[arg+1])*1000));
+				if(maxTime.isNegative() || maxTime.isZero()) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -u tag is not a positive number of seconds.");
+				System.exit(1);
+			}
+		}
+		long externalMemory = ExternalSearch.DEFAULT_MEMORY;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-k"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				externalMemory = Math.round(Double.parseDouble(args[arg+1])*1_000_000);
+				if(externalMemory <= 0) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -k tag is not a positive number of megabytes.");
+				System.exit(1);
+			}
+		} else if (mode.equals("external")) {
+			if (!isBatch) System.out.println("You can specify the memory the external search sorts in with -k tag by a number of megabytes. Default = 64.");
+		}
+		long nodeLimit = SMAStar.DEFAULT_NODES;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-x"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				nodeLimit = Long.parseLong(args[arg+1]);
+				if(nodeLimit <= 0) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -x tag is not a positive number of nodes.");
+				System.exit(1);
+			}
+		} else if (mode.equals("sma") || mode.equals("beam")) {
+			if (!isBatch) System.out.println("You can specify the number of nodes kept in memory with -x tag by a number. Default = "+nodeLimit+".");
+		}
+		ThreadFactory threadKind = SearchScope.platformThreads();
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-g"))
+				arg = i;
+		}
+		if (arg != -1) {
+			if(args[arg+1].equals("virtual")) {
+				threadKind = SearchScope.virtualThreads();
+				if(threadKind == null) {
+					System.out.println("Virtual threads are not available in this Java runtime, platform threads are used.");
+					threadKind = SearchScope.platformThreads();
+				}
+			} else if(!args[arg+1].equals("platform")) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -g tag is neither platform nor virtual.");
+				System.exit(1);
+			}
+		}
+		boolean race = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-f"))
+				race = true;
+		}
+		SearchSettings settings = new SearchSettings(mode, depth_limit, workers, weight, deadline, maxNodes, maxBytes, maxTime, externalMemory, nodeLimit);
+		
+		// get the form of the reports
+		boolean verbose = false;
+		boolean binary = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-v"))
+				verbose = true;
+			if (args[i].equals("-z"))
+				binary = true;
+		}
+		
+		// get an interval of the statistics printed while searching
+		Duration sampling = null;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-r"))
+				arg = i;
+		}
+		if (arg != -1) {
+			try {
+				sampling = Duration.ofMillis(Math.round(Double.parseDouble(args[arg+1])*1000));
+				if(sampling.isNegative() || sampling.isZero()) throw new NumberFormatException();
+			} catch(NumberFormatException e) {
+				int tm = arg+1;
+				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -r tag is not a positive number of seconds.");
+				System.exit(1);
+			}
+		}
+		
+		// get a file keeping the solutions found
+		SolutionCache cache = null;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-c"))
+				arg = i;
+		}
+		if (arg != -1) {
+			cache = new SolutionCache(new File(args[arg+1]), SolutionCache.DEFAULT_CAPACITY);
+		}
+		
+		// get a file of puzzles to be solved in a batch
+		String batch = null;
+		String output = null;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-b"))
+				arg = i;
+		}
+		if (arg != -1) {
+			batch = args[arg+1];
+			arg = -1;
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-o"))
+					arg = i;
+			}
+			if (arg != -1) output = args[arg+1];
+		}
 		
+		// get an address to serve the puzzles sent to it
+		String daemon = null;
+		arg = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-i"))
+				arg = i;
+		}
+		if (arg != -1) {
+			daemon = args[arg+1];
+		}
+		
+		// get methods to be used to solve the puzzle
+		arg = -1;
+		int heuristics = 16;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].equals("-h"))
 				arg = i;
 		}
 		if (arg == -1) {
-			System.out.println("You can specify a heuristic to be used with the -h tag followed by a numer."
+			if (!isBatch) System.out.println("You can specify a heuristic to be used with the -h tag followed by a numer."
 					+ "\nStart with 0."
 					+ "\nAdd 1 to the number to use trivial f(n)=0 heuristic."
 					+ "\nAdd 2 to use Euclidean distance of the empty tile as a heuristic."
 					+ "\nAdd 4 to use Manhattan distance of the empty tile as a heuristic."
 					+ "\nAdd 8 to use Euclidean distance of all tiles as a heuristic."
 					+ "\nAdd 16 to use Manhattan distance of all tiles as a heuristic."
+					+ "\nAdd 32 to use additive pattern databases as a heuristic."
+					+ "\nAdd 64 to use exact distances as a heuristic."
+					+ "\nAdd 128 to use Manhattan distance with linear conflicts as a heuristic."
+					+ "\nAdd 256 to also use the maximum of the other selected heuristics."
 					+ "\n");
-			MhfA = true;
 		} else {
-			int N = 0;
 			try {
-				 N = Integer.parseInt(args[arg+1]);
+				 heuristics = Integer.parseInt(args[arg+1]);
 			} catch(NumberFormatException e) {
 				int tm = arg+1;
 				System.err.println("Argument number "+tm+" \""+args[arg+1]+"\" specified with the -h tag is not a number.");
 				System.exit(1);
 			}
-			if(N>=16) {
-				MhfA = true;
-				N=N-16;
-			}
-			if(N>=8) {
-				EcfA = true;
-				N=N-8;
-			}
-			if(N>=4) {
-				MhfZ = true;
-				N=N-4;
+		}
+		
+		if(((heuristics & 64) != 0 || mode.equals("oracle")) && size != BoardSize.of(3,3)) {
+			System.err.println("Exact distances are only available for 3x3 boards.");
+			System.exit(1);
+		}
+		
+		LinkedList<Approach> apprs = approaches(heuristics);
+		
+		// creating instances of this class
+		
+		LinkedList<SearchEngine> mbs = new LinkedList<SearchEngine>();
+		
+		if(batch != null) {
+			if(mode.equals("oracle")) apprs.clear();
+			else if(apprs.isEmpty()) {
+				System.err.println("No heuristic selected with the -h tag, the batch needs one to solve the puzzles.");
+				System.exit(1);
 			}
-			if(N>=2) {
-				EcfZ = true;
-				N=N-2;
+			BatchSolver bs = new BatchSolver(settings, mode.equals("oracle") ? null : apprs.getLast(), width, cache);
+			bs.solve(batch, output);
+			if(cache != null) cache.close();
+			return;
+		}
+		
+		if(daemon != null) {
+			new SolverDaemon(settings, heuristics, width, cache).serve(daemon);
+			return;
+		}
+		
+		Rejection rejection = Rejection.check(initialGS, target, depth_limit);
+		if(rejection != null) {
+			System.out.println("Rejected: "+rejection.code());
+			return;
+		}
+		
+		GameStateNode start;
+		SearchEngine engine;
+		if(mode.equals("oracle")) {
+			apprs.clear();
+			start = new GameStateNode(initialGS, target);
+			engine = createEngine(settings, start, null);
+			mbs.add(cache != null ? new CachedSearch(engine, start, depth_limit, cache) : engine);
+		}
+		for(Approach appr:apprs) {
+			 start = new GameStateNode(initialGS, target, appr.hm.get());
+			 engine = createEngine(settings, start, appr);
+			 mbs.add(cache != null ? new CachedSearch(engine, start, depth_limit, cache) : engine);
+		}
+		
+		// starting threads
+		
+		SamplingReporter reporter = null;
+		if(sampling != null) {
+			reporter = new SamplingReporter(mbs, sampling);
+			reporter.start();
+		}
+		Portfolio portfolio = race ? new Portfolio(mbs) : null;
+		String failure = null;
+		try (SearchScope scope = new SearchScope(threadKind)) {
+			if(race) {
+				portfolio.fork(scope);
+			} else {
+				for(SearchEngine mb:mbs) scope.fork(mb);
 			}
-			if(N>=1) {
-				triv = true;
-				N=N-1;
+			
+			// waiting for all threads to finish, or for the first proven result of a race
+			
+			try {
+				// the searches check their time budgets themselves, the scope cancels them if they are late by as much again
+				if(maxTime != null) scope.joinUntil(Instant.now().plus(maxTime).plus(maxTime));
+				scope.join();
+				scope.throwIfFailed();
+			} catch (TimeoutException e) {
+				System.out.println("Cancelling the searches: "+e.getMessage());
+				scope.join();
+				scope.throwIfFailed();
 			}
+		} catch (InterruptedException e) {
+			// closing the scope cancelled the searches, what they found so far is reported
+			System.out.println("Interrupted before finishing, the searches were cancelled.");
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			failure = e.getMessage();
+		}
+		if(reporter != null) reporter.stop();
+		if(cache != null) cache.close();
+		if(failure != null) {
+			System.err.println(failure);
+			System.exit(1);
+		}
+		
+		// reporting on each instance
+		
+		ReportWriter reports = new ReportWriter();
+		for(SearchEngine mb:mbs) {
+			makeReport(mb, reports, verbose, binary);
+		}
+		reports.close();
+		if(race) System.out.print(portfolio.summary());
+	}
+	
+	/**
+	 * Internal helper method creating the approaches selected by the -h number.
+	 * @param N, sum of the numbers of the heuristics, as described by the hint of the -h tag.
+	 * @return the approaches, the maximum of the others last if selected.
+	 */
+	static LinkedList<Approach> approaches(int N) {
+		boolean triv = false; //1
+		boolean EcfZ = false; //2
+		boolean MhfZ = false; //4
+		boolean EcfA = false; //8
+		boolean MhfA = false; //16
+		boolean PDB = false; //32
+		boolean exact = false; //64
+		boolean LC = false; //128
+		boolean max = false; //256
+		
+		if(N>=256) {
+			max = true;
+			N=N-256;
+		}
+		if(N>=128) {
+			LC = true;
+			N=N-128;
+		}
+		if(N>=64) {
+			exact = true;
+			N=N-64;
+		}
+		if(N>=32) {
+			PDB = true;
+			N=N-32;
+		}
+		if(N>=16) {
+			MhfA = true;
+			N=N-16;
+		}
+		if(N>=8) {
+			EcfA = true;
+			N=N-8;
+		}
+		if(N>=4) {
+			MhfZ = true;
+			N=N-4;
+		}
+		if(N>=2) {
+			EcfZ = true;
+			N=N-2;
+		}
+		if(N>=1) {
+			triv = true;
+			N=N-1;
 		}
 		
 		LinkedList<Approach> apprs = new LinkedList<Approach>();
@@ -189,140 +566,245 @@ public class MainBody implements Runnable {
 			final HeuristicMethod triv_tmp = (GameState g, GameState t) -> {
 				return 0;
 				};
-			apprs.add(new Approach(triv_tmp, "Trivial f()=0 solution"));
+			apprs.add(new Approach(() -> triv_tmp, "Trivial f()=0 solution", true));
 		}
 		if(EcfZ) {
-			final HeuristicMethod EcfZ_tmp = (GameState g, GameState t) -> {
-				return g.getTileLocation(0).Euclid(t.getTileLocation(0));
-				};
-			apprs.add(new Approach(EcfZ_tmp, "Euclid for tile 0"));
+			apprs.add(new Approach(() -> new TileDistanceHeuristic(true, true), "Euclid for tile 0", false));
 		}
 		
 		if(MhfZ) {
-			final HeuristicMethod MhfZ_tmp = (GameState g, GameState t) -> {
-				return g.getTileLocation(0).Manhattan(t.getTileLocation(0));
-				};
-			apprs.add(new Approach(MhfZ_tmp, "Manhattan for tile 0"));
+			apprs.add(new Approach(() -> new TileDistanceHeuristic(false, true), "Manhattan for tile 0", true));
 		}
 		
 		if(EcfA) {
-			final HeuristicMethod EcfA_tmp = (GameState g, GameState t) -> {
-			Double d = (double) 0;
-			for(int i = 0; i<8; i++)
-				d+=g.getTileLocation(i).Euclid(t.getTileLocation(i));
-			return d;
-			};
-			apprs.add(new Approach(EcfA_tmp, "Euclid for all tiles"));
+			apprs.add(new Approach(() -> new TileDistanceHeuristic(true, false), "Euclid for all tiles", false));
 		}
 		if(MhfA) {
-			final HeuristicMethod MhfA_tmp = (GameState g, GameState t) -> {
-				Double d = (double) 0;
-					for(int i = 0; i<8; i++)
-						d+=g.getTileLocation(i).Manhattan(t.getTileLocation(i));
-				return d;
-				};
-			apprs.add(new Approach(MhfA_tmp, "Manhattan for all tiles"));
+			apprs.add(new Approach(() -> new TileDistanceHeuristic(false, false), "Manhattan for all tiles", true));
 		}
-		
-		// creating instances of this class
-		
-		LinkedList<MainBody> mbs = new LinkedList<MainBody>();
-		GameStateNode start;
-		
-		for(Approach appr:apprs) {
-			 start = new GameStateNode(initialGS, target, appr.hm);
-			 mbs.add(new MainBody(start, appr.name, depth_limit));
+		if(PDB) {
+			apprs.add(new Approach(() -> new PatternDatabaseHeuristic(), "Additive pattern databases", true, true, false));
 		}
-		
-		// starting threads
-		
-		LinkedList<Thread> threads = new LinkedList<Thread>();
-		for(MainBody mb:mbs) {
-			Thread th = new Thread(mb);
-			th.start();
-			threads.add(th);
+		if(exact) {
+			apprs.add(new Approach(() -> new OracleHeuristic(), "Exact distances", true, true, true));
 		}
-		
-		// waiting for all threads to finish
-		
-		try {
-			for(Thread th:threads) {
-				th.join();
+		if(LC) {
+			apprs.add(new Approach(() -> new LinearConflictHeuristic(), "Manhattan with linear conflicts", true));
+		}
+		if(max && apprs.size() > 1) {
+			final LinkedList<Approach> parts = new LinkedList<Approach>(apprs);
+			boolean integral = true;
+			boolean tables = false;
+			boolean threeByThree = false;
+			for(Approach appr:parts) {
+				integral &= appr.integral;
+				tables |= appr.tables;
+				threeByThree |= appr.threeByThree;
 			}
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-			System.out.println("Interrupted before finishing.");
-			System.exit(1);
+			apprs.add(new Approach(() -> {
+				HeuristicMethod[] hms = new HeuristicMethod[parts.size()];
+				for(int i = 0; i<hms.length; i++) hms[i] = parts.get(i).hm.get();
+				return new MaxHeuristic(hms);
+			}, "Maximum of heuristics", integral, tables, threeByThree));
 		}
-		
-		// reporting on each instance
-		
-		for(MainBody mb:mbs) {
-			makeReport(mb);
+		return apprs;
+	}
+	
+	/**
+	 * Internal helper method.
+	 * @param mode
+	 * @return true if the string names a search mode.
+	 */
+	static boolean isMode(String mode) {
+		return mode.equals("astar") || mode.equals("idastar") || mode.equals("bidirectional")
+				|| mode.equals("parallel") || mode.equals("weighted") || mode.equals("anytime") || mode.equals("external")
+				|| mode.equals("sma") || mode.equals("beam") || mode.equals("oracle");
+	}
+	
+	/**
+	 * Internal helper method creating a search of the selected mode.
+	 * @param settings, the mode, its parameters and the budget of the search.
+	 * @param start, root node created with the target and a heuristic of the approach.
+	 * @param appr, the approach, not used by the oracle.
+	 * @return SearchEngine
+	 */
+	static SearchEngine createEngine(SearchSettings settings, GameStateNode start, Approach appr) {
+		String mode = settings.mode;
+		int depthLimit = settings.depthLimit;
+		SearchEngine engine;
+		if(mode.equals("oracle")) {
+			engine = new OracleSolver(start, "Exact distance oracle", depthLimit);
+		} else if(mode.equals("idastar")) {
+			engine = new IDAStar(start, appr.name, depthLimit);
+		} else if(mode.equals("bidirectional")) {
+			engine = new BidirectionalSearch(start, appr.backward.get(), appr.name, depthLimit);
+		} else if(mode.equals("parallel")) {
+			Supplier<OpenList> open = appr.integral ? BucketOpenList::new : HeapOpenList::new;
+			engine = new ParallelSearch(start, appr.name, depthLimit, settings.workers, open);
+		} else if(mode.equals("weighted")) {
+			engine = new MainBody(start, appr.name, depthLimit, appr.integral, settings.weight);
+		} else if(mode.equals("anytime")) {
+			engine = new AnytimeSearch(start, appr.name, depthLimit, settings.weight, settings.deadline);
+		} else if(mode.equals("external")) {
+			engine = new ExternalSearch(start, appr.name, depthLimit, settings.externalMemory);
+		} else if(mode.equals("sma")) {
+			engine = new SMAStar(start, appr.name, depthLimit, settings.nodeLimit);
+		} else if(mode.equals("beam")) {
+			engine = new BeamSearch(start, appr.name, depthLimit, settings.nodeLimit);
+		} else {
+			engine = new MainBody(start, appr.name, depthLimit, appr.integral);
 		}
+		engine.setBudget(settings.budget());
+		return engine;
 	}
 	
 	/**
 	 * Internal helper method.
+	 * Reads the tile IDs of a configuration, listed line by line from left to right.
+	 * The IDs are separated by commas or spaces, a string of digits alone holds one ID per digit.
 	 * @param s: string
-	 * @param i: index
-	 * @return String a single character in a String format at a given index
+	 * @param width: number of columns, 0 for a square board
+	 * @return GameState, null if the string does not describe a board
+	 */
+	static GameState parseState(String s, int width) {
+		String[] parts = s.trim().split("[,\\s]+");
+		if(parts.length == 1) parts = parts[0].split("");
+		int[] cells = new int[parts.length];
+		try {
+			for(int i = 0; i<parts.length; i++) {
+				cells[i] = Integer.parseInt(parts[i]);
+				if(cells[i] < 0 || cells[i] >= parts.length) return null;
+			}
+		} catch(NumberFormatException e) {
+			return null;
+		}
+		int w = width != 0 ? width : (int) Math.round(Math.sqrt(cells.length));
+		if(w < 1 || cells.length % w != 0) return null;
+		try {
+			return new GameState(BoardSize.of(w, cells.length/w), cells);
+		} catch(IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Internal helper method.
+	 * Writes the tile IDs of a configuration line by line from left to right, separated by commas,
+	 * in a form parseState() reads back.
+	 * @param gs
+	 * @return String
 	 */
-	private static int getIntInString(String s, int i) {
-		return Integer.parseInt(s.substring(i,i+1));
+	static String formatState(GameState gs) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < gs.getSize().cells; i++) {
+			if(i > 0) sb.append(",");
+			sb.append(gs.tileAt(i));
+		}
+		return sb.toString();
 	}
 	
 	/**
 	 * Internal helper method for reporting on an instance.
+	 * The report names the initial and the target state and lists the moves of the blank tile
+	 * as a string of U, D, L and R. The boards along the solution are only printed on request.
 	 * @param mb
+	 * @param reports, writes the report to a file named after the heuristic.
+	 * @param verbose, true to append every board of the solution.
+	 * @param binary, true to also write the solution as a binary record, 2 bits per move.
 	 */
-	private static void makeReport(MainBody mb) {
+	private static void makeReport(SearchEngine mb, ReportWriter reports, boolean verbose, boolean binary) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("[");
 		sb.append(Instant.now());
 		sb.append("]\n");
 		sb.append(mb.getName());
 		
-		GameStateNode currentNode = mb.getSolution();
-		if (currentNode == null) {
-			sb.append(" failed to find a solution in ");
+		// the search with a node arena rebuilds the path from the parent indexes
+		GameState[] path = mb instanceof MainBody ? ((MainBody) mb).getPath() : null;
+		GameStateNode solution = path == null ? mb.getSolution() : null;
+		Budget budget = mb.getBudget();
+		String stopReason = budget == null ? null : budget.getStopReason();
+		if (path == null && solution == null) {
+			if (stopReason != null) {
+				sb.append(" was stopped (");
+				sb.append(stopReason);
+				sb.append(") without a solution after ");
+			} else {
+				sb.append(" failed to find a solution in ");
+			}
 			sb.append(mb.getDuration().toString());
 			sb.append(".\n");
+			if (mb.getStatistics() != null) {
+				sb.append(mb.getStatistics().toString());
+				sb.append("\n");
+			}
 		} else {
 			sb.append(":\n");
 			sb.append("Duration: ");
 			sb.append(mb.getDuration().toString());
 			sb.append("\n");
-			
-			Stack<GameStateNode> q = new Stack<GameStateNode>();
-			q.add(currentNode);
-			while(currentNode.hasParent()) {
-				currentNode = currentNode.getParent();
-				q.add(currentNode);
-			}	
-			for(int i = 0; 0 < q.size(); i++) {
-				sb.append(i);
-				sb.append("\n");
-				sb.append(q.pop().toString());
+			if (stopReason != null) {
+				sb.append("Stopped early: ");
+				sb.append(stopReason);
+				sb.append(".\n");
+			}
+			if (Double.isInfinite(mb.getBound())) {
+				sb.append("May be longer than an optimal solution.\n");
+			} else if (mb.getBound() > 1) {
+				sb.append(String.format("At most %.2f times longer than an optimal solution.%n", mb.getBound()));
+			}
+			if (mb.getStatistics() != null) {
+				sb.append(mb.getStatistics().toString());
 				sb.append("\n");
 			}
+			
+			GameState start = path != null ? path[0] : Moves.start(solution);
+			GameState target = path != null ? path[path.length-1] : solution.getGameState();
+			byte[] moves = path != null ? Moves.of(path) : Moves.of(solution);
+			sb.append("Start: ");
+			sb.append(formatState(start));
+			sb.append("\nTarget: ");
+			sb.append(formatState(target));
+			sb.append("\nMoves: ");
+			sb.append(moves.length);
+			sb.append("\n");
+			sb.append(Moves.toText(moves));
+			sb.append("\n");
+			if (binary) {
+				reports.write(Paths.get(mb.getName()+".moves"), Moves.record(start, target, moves));
+			}
+			if (verbose) {
+				// replaying the moves, the nodes of the solution are not needed
+				GameState board = start.clone();
+				BoardSize size = board.getSize();
+				for(int i = 0; i <= moves.length; i++) {
+					if (i > 0) board.slide(size.move(moves[i-1], board.getBlankIndex()));
+					sb.append(i);
+					sb.append("\n");
+					sb.append(board.toString());
+					sb.append("\n");
+				}
+			}
 		}
-		try {
-			FileWriter out = new FileWriter(mb.getName()+".log");
-			out.append(sb.toString());
-			out.close();
-		} catch (IOException e) {
-			System.out.println("Couldn't write to a file. Dumping to console:\n");
-			System.out.println(sb.toString());
-		}
+		reports.write(Paths.get(mb.getName()+".log"), sb.toString());
 	}
 	
 	// The dynamic part of the function
 	
-	private PriorityQueue<GameStateNode> q;
+	private GameStateNode root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private IncrementalHeuristic incremental;
+	private NodeArena arena;
+	private IndexOpenList q;
+	private ClosedSet closed;
+	private int solutionIndex;
 	private GameStateNode solution;
 	private String name;
 	private int depthLimit;
+	private double weight;
+	private SearchStatistics stats;
+	private Budget budget;
 	private Instant startTime;
 	private Duration d;
 	
@@ -333,17 +815,7 @@ public class MainBody implements Runnable {
 	 * @param name
 	 */
 	MainBody(GameStateNode initialState, String name){
-		Comparator<GameStateNode> c = (GameStateNode g, GameStateNode h)->{
-				Double d = g.getDistance()-h.getDistance();
-				if(d > 0.1) return 1;
-				if(d < -0.1) return -1;
-				return 0;
-			};
-		q = new PriorityQueue<GameStateNode>(c);
-		q.add(initialState);
-		this.name = name;
-		solution = null;
-		depthLimit = 21;
+		this(initialState, name, 21, false);
 	}
 	/**
 	 * More elaborate constructor allowing to set a depth limit.
@@ -352,63 +824,190 @@ public class MainBody implements Runnable {
 	 * @param depthLimit
 	 */
 	MainBody(GameStateNode initialState, String name, int depthLimit){
-		this(initialState, name);
+		this(initialState, name, depthLimit, false);
+	}
+	/**
+	 * Constructor allowing to choose the open list.
+	 * The nodes are kept in a NodeArena and referred to by their indexes.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 * @param integral, true if the heuristic returns whole numbers only, which allows an IndexBucketOpenList.
+	 */
+	MainBody(GameStateNode initialState, String name, int depthLimit, boolean integral){
+		this(initialState, name, depthLimit, integral, 1);
+	}
+	/**
+	 * Constructor of a weighted A* search, expanding the nodes in the order of g + weight*h.
+	 * The solution found is at most weight times longer than an optimal one.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 * @param integral, true if the heuristic returns whole numbers only.
+	 * @param weight, of the value of the heuristic, 1 for A*.
+	 */
+	MainBody(GameStateNode initialState, String name, int depthLimit, boolean integral, double weight){
+		root = initialState;
+		target = initialState.getTarget();
+		heuristic = initialState.getHeuristic();
+		if(heuristic instanceof IncrementalHeuristic) incremental = (IncrementalHeuristic) heuristic;
+		GameState gs = initialState.getGameState();
+		arena = new NodeArena(gs.getSize());
+		q = integral && weight == 1 ? new IndexBucketOpenList(arena) : new IndexHeapOpenList(arena, weight);
+		q.add(arena.add(gs.getPacked(), gs.getPackedHigh(), gs.getBlankIndex(), NodeArena.NONE,
+				initialState.getSteps(), initialState.getDistance()-initialState.getSteps(), -1));
+		closed = new ClosedSet();
+		closed.offer(gs.getPacked(), gs.getPackedHigh(), initialState.getSteps());
+		this.name = name;
+		solutionIndex = -1;
+		solution = null;
 		this.depthLimit = depthLimit;
+		this.weight = weight;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
 	}
 	
 	public void run(){
 		startTime = Instant.now();
-		int depthWorkedOn = 0;
-		int depthLoweredTimes = 0;
-		System.out.println(""+ Instant.now().toString() +":\n\tThread "+name+" started.");
-		GameStateNode gsn;
-		int nOfChildren;
-		while(!(q.peek().isSolution())) {
-			gsn = q.poll();
-			if(gsn.getSteps()<depthLimit) {
-				nOfChildren = gsn.makeChildren();
-				for(int i = 0; i<nOfChildren;i++) {
-					q.add(gsn.getChild(i));
-				}
+		Progress.report(name, "started.");
+		stats.start();
+		budget.start();
+		GameState board = root.getGameState().clone();
+		Successors successors = new Successors();
+		int count = 0;
+		while(!q.isEmpty()) {
+			// a cancelled search, or one over its budget, gives up without a solution
+			if(++count % Budget.CHECK_INTERVAL == 0 && budget.exceeded(stats.getExpanded(), bytes())) break;
+			int node = q.poll();
+			long packed = arena.packed(node);
+			long packedHigh = arena.packedHigh(node);
+			if(packed == target.getPacked() && packedHigh == target.getPackedHigh()) {
+				solutionIndex = node;
+				break;
+			}
+			int g = arena.g(node);
+			// a shorter path to this configuration was found after it had been queued
+			if(closed.get(packed, packedHigh) < g) {
+				stats.duplicate();
+				continue;
 			}
-			int currentDepth = gsn.getSteps();
-			if(currentDepth>depthWorkedOn) {
-				System.out.println(""+ Instant.now().toString() +":\n\tThread "+name+" reached depth "+currentDepth+".");
-				depthWorkedOn = currentDepth;
-			}
-			if(currentDepth<depthWorkedOn) {
-				depthLoweredTimes++;
-				if(depthLoweredTimes==4) {
-					System.out.println(""+ Instant.now().toString() +":\n\tThread "+name+" returned to depth "+currentDepth+".");
-					depthLoweredTimes=0;
-					depthWorkedOn=currentDepth;
+			if(g >= depthLimit) continue;
+			
+			int blank = arena.blank(node);
+			double h = arena.h(node);
+			stats.expanded(g+h);
+			board.set(packed, packedHigh, blank);
+			board.successors(arena.lastMove(node), successors);
+			stats.generated(successors.count);
+			for(int k = 0; k<successors.count; k++) {
+				long childPacked = successors.packed[k];
+				long childPackedHigh = successors.packedHigh[k];
+				if(!closed.offer(childPacked, childPackedHigh, g+1)) {
+					stats.duplicate();
+					continue;
 				}
+				int cell = successors.blank[k];
+				board.set(childPacked, childPackedHigh, cell);
+				q.add(arena.add(childPacked, childPackedHigh, cell, node, g+1, measure(board, h, blank), successors.move[k]));
 			}
-			if(q.isEmpty()) break;
+			stats.open(q.size());
 		}
 		d = Duration.between(startTime, Instant.now());
-		System.out.println(""+ Instant.now().toString() +":\n\tThread "+name+" finished.");
-		solution = q.poll();
+		stats.finish(solutionIndex < 0 ? -1 : arena.g(solutionIndex));
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+	
+	/**
+	 * Value of the heuristic for the board after a move.
+	 * @param board
+	 * @param parentValue, value before the move.
+	 * @param parentBlank, cell of the blank tile before the move.
+	 * @return double
+	 */
+	private double measure(GameState board, double parentValue, int parentBlank) {
+		if(incremental == null) return heuristic.compare(board, target);
+		// the tile moved from the cell the blank tile is in now into the blank cell of the parent
+		int tile = board.tileAt(parentBlank);
+		return incremental.update(parentValue, tile, board.getBlankIndex(), parentBlank, target);
+	}
+	
+	/**
+	 * @return estimated memory of the nodes, the closed set and the open list, in bytes.
+	 */
+	private long bytes() {
+		return arena.bytes() + closed.bytes() + 4L*q.size();
 	}
 	
 	/**
+	 * Follow the parent indexes from the solution back to the root.
+	 * @return the configurations of the solution starting with the initial state, null if no solution was found.
+	 */
+	GameState[] getPath() {
+		if(solutionIndex < 0) return null;
+		BoardSize size = root.getGameState().getSize();
+		GameState[] path = new GameState[arena.g(solutionIndex)-root.getSteps()+1];
+		for(int i = solutionIndex, k = path.length-1; k >= 0; i = arena.parent(i), k--) {
+			path[k] = new GameState(size, arena.packed(i), arena.packedHigh(i), arena.blank(i));
+		}
+		return path;
+	}
+	
+	/**
+	 * The nodes of the solution are created on the first call.
 	 * @return a node of the tree identical to the target state.
 	 */
-	GameStateNode getSolution(){
+	public GameStateNode getSolution(){
+		if(solution == null && solutionIndex >= 0) {
+			GameState[] path = getPath();
+			GameStateNode node = root;
+			for(int k = 1; k<path.length; k++) {
+				node = new GameStateNode(node, path[k], heuristic);
+			}
+			solution = node;
+		}
 		return solution;
 	}
 	/**
 	 * Get the instances name.
 	 * @return
 	 */
-	String getName() {
+	public String getName() {
 		return name;
 	}
 	/**
 	 * Get the duration for which the instance ran.
 	 * @return
 	 */
-	Duration getDuration() {
+	public Duration getDuration() {
 		return d;
 	}
+	/**
+	 * Get the bound on the length of the solution relative to an optimal one.
+	 * @return the weight of the heuristic.
+	 */
+	public double getBound() {
+		return weight;
+	}
+	/**
+	 * Get the counters describing the cost of the search.
+	 * @return
+	 */
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+	/**
+	 * Limit the resources of the search, must be called before run().
+	 * @param budget
+	 */
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+	/**
+	 * Get the budget the search checks.
+	 * @return
+	 */
+	public Budget getBudget() {
+		return budget;
+	}
 }
@@ -0,0 +1,24 @@
+/**
+ * Heuristic returning the largest value of several heuristics.
+ * The maximum of admissible heuristics is admissible and at least as informed as each of them.
+ */
+public class MaxHeuristic implements HeuristicMethod {
+
+	private HeuristicMethod[] parts;
+
+	/**
+	 * Constructor.
+	 * @param parts, the heuristics combined.
+	 */
+	MaxHeuristic(HeuristicMethod... parts){
+		this.parts = parts;
+	}
+
+	public double compare(GameState gs, GameState target) {
+		double d = 0;
+		for(HeuristicMethod h:parts) {
+			d = Math.max(d, h.compare(gs, target));
+		}
+		return d;
+	}
+}
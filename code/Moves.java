@@ -0,0 +1,133 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Compact forms of a solution: the directions the blank tile moves in, as in BoardSize,
+ * written as a string of U, D, L and R, or packed 2 bits per move.
+ */
+class Moves {
+
+	/**
+	 * Letters of the directions, indexed by direction.
+	 */
+	private static final String LETTERS = "DLRU";
+
+	private Moves(){
+	}
+
+	/**
+	 * @param from
+	 * @param to, a configuration one move away.
+	 * @return direction of the move of the blank tile.
+	 */
+	static int direction(GameState from, GameState to) {
+		BoardSize size = from.getSize();
+		for(int d = BoardSize.DOWN; d <= BoardSize.UP; d++) {
+			if(size.move(d, from.getBlankIndex()) == to.getBlankIndex()) return d;
+		}
+		throw new IllegalArgumentException("The configurations are not one move apart.");
+	}
+
+	/**
+	 * @param path, configurations of a solution, each one move from the previous one.
+	 * @return directions of the moves.
+	 */
+	static byte[] of(GameState[] path) {
+		byte[] moves = new byte[path.length-1];
+		for(int i = 0; i<moves.length; i++) {
+			moves[i] = (byte) direction(path[i], path[i+1]);
+		}
+		return moves;
+	}
+
+	/**
+	 * @param solution, a node identical to the target, followed back to the root through its parents.
+	 * @return directions of the moves from the root.
+	 */
+	static byte[] of(GameStateNode solution) {
+		int length = 0;
+		for(GameStateNode node = solution; node.hasParent(); node = node.getParent()) length++;
+		byte[] moves = new byte[length];
+		GameStateNode node = solution;
+		for(int i = length-1; i >= 0; i--) {
+			moves[i] = (byte) direction(node.getParent().getGameState(), node.getGameState());
+			node = node.getParent();
+		}
+		return moves;
+	}
+
+	/**
+	 * @param solution, a node identical to the target, followed back to the root through its parents.
+	 * @return the root.
+	 */
+	static GameState start(GameStateNode solution) {
+		GameStateNode node = solution;
+		while(node.hasParent()) node = node.getParent();
+		return node.getGameState();
+	}
+
+	/**
+	 * @param moves
+	 * @return the moves as a string of U, D, L and R.
+	 */
+	static String toText(byte[] moves) {
+		char[] text = new char[moves.length];
+		for(int i = 0; i<moves.length; i++) text[i] = LETTERS.charAt(moves[i]);
+		return new String(text);
+	}
+
+	/**
+	 * @param moves
+	 * @return the moves, 4 to a byte, the first one in the lowest bits.
+	 */
+	static byte[] pack(byte[] moves) {
+		byte[] packed = new byte[(moves.length+3)/4];
+		for(int i = 0; i<moves.length; i++) {
+			packed[i/4] |= moves[i] << (2*(i%4));
+		}
+		return packed;
+	}
+
+	/**
+	 * @param packed, as returned by pack().
+	 * @param length, number of moves.
+	 * @return the moves.
+	 */
+	static byte[] unpack(byte[] packed, int length) {
+		byte[] moves = new byte[length];
+		for(int i = 0; i<length; i++) {
+			moves[i] = (byte) ((packed[i/4] >>> (2*(i%4))) & 3);
+		}
+		return moves;
+	}
+
+	/**
+	 * Binary record of a solution, also used by SolutionCache:
+	 * width and height in a byte each, the start and the target as two longs each,
+	 * the number of moves in two bytes and the packed moves.
+	 * @param start
+	 * @param target
+	 * @param moves
+	 * @return the bytes of the record, big-endian.
+	 */
+	static byte[] record(GameState start, GameState target, byte[] moves) {
+		byte[] packed = pack(moves);
+		ByteBuffer b = ByteBuffer.allocate(recordSize(moves.length));
+		b.put((byte) start.getSize().width);
+		b.put((byte) start.getSize().height);
+		b.putLong(start.getPacked());
+		b.putLong(start.getPackedHigh());
+		b.putLong(target.getPacked());
+		b.putLong(target.getPackedHigh());
+		b.putShort((short) moves.length);
+		b.put(packed);
+		return b.array();
+	}
+
+	/**
+	 * @param length, number of moves.
+	 * @return size of a record in bytes.
+	 */
+	static int recordSize(int length) {
+		return 2+4*8+2+(length+3)/4;
+	}
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+/**
+ * Storage of the nodes of a search in parallel arrays of primitives, a node being referred to by its index.
+ * Holds the packed configuration, the index of the parent, the number of steps (g), the value of the heuristic (h),
+ * the cell of the blank tile and the move which produced the node.
+ *
+ * The arrays grow in chunks of a fixed size, so growing never copies the stored nodes.
+ * A node takes about 30 bytes, the high word of the configuration is only kept for boards of more than 16 cells.
+ */
+class NodeArena {
+
+	private static final int CHUNK_BITS = 14;
+	private static final int CHUNK = 1<<CHUNK_BITS;
+	private static final int MASK = CHUNK-1;
+
+	/**
+	 * Index of the parent of a root.
+	 */
+	static final int NONE = -1;
+
+	private boolean twoWords;
+	private long[][] packed;
+	private long[][] packedHigh;
+	private int[][] parent;
+	private short[][] g;
+	private float[][] h;
+	private byte[][] blank;
+	private byte[][] lastMove;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * @param board, dimensions of the boards stored.
+	 */
+	NodeArena(BoardSize board) {
+		twoWords = board.cells > 16;
+		packed = new long[0][];
+		packedHigh = new long[0][];
+		parent = new int[0][];
+		g = new short[0][];
+		h = new float[0][];
+		blank = new byte[0][];
+		lastMove = new byte[0][];
+		this.size = 0;
+	}
+
+	/**
+	 * Store a node.
+	 * @param packed, the low word of the packed configuration.
+	 * @param packedHigh, the high word of the packed configuration.
+	 * @param blank, index of the cell holding the blank tile.
+	 * @param parent, index of the parent, NONE for a root.
+	 * @param g, number of steps from the root.
+	 * @param h, value of the heuristic.
+	 * @param lastMove, direction of the move of the blank tile which produced the node, -1 for a root.
+	 * @return index of the node.
+	 */
+	int add(long packed, long packedHigh, int blank, int parent, int g, double h, int lastMove) {
+		int i = size;
+		int c = i >>> CHUNK_BITS;
+		if(c == this.packed.length) grow();
+		int o = i & MASK;
+		this.packed[c][o] = packed;
+		if(twoWords) this.packedHigh[c][o] = packedHigh;
+		this.parent[c][o] = parent;
+		this.g[c][o] = (short) g;
+		this.h[c][o] = (float) h;
+		this.blank[c][o] = (byte) blank;
+		this.lastMove[c][o] = (byte) lastMove;
+		size++;
+		return i;
+	}
+
+	/**
+	 * Add a chunk to every array.
+	 */
+	private void grow() {
+		int n = packed.length+1;
+		packed = Arrays.copyOf(packed, n);
+		packed[n-1] = new long[CHUNK];
+		if(twoWords) {
+			packedHigh = Arrays.copyOf(packedHigh, n);
+			packedHigh[n-1] = new long[CHUNK];
+		}
+		parent = Arrays.copyOf(parent, n);
+		parent[n-1] = new int[CHUNK];
+		g = Arrays.copyOf(g, n);
+		g[n-1] = new short[CHUNK];
+		h = Arrays.copyOf(h, n);
+		h[n-1] = new float[CHUNK];
+		blank = Arrays.copyOf(blank, n);
+		blank[n-1] = new byte[CHUNK];
+		lastMove = Arrays.copyOf(lastMove, n);
+		lastMove[n-1] = new byte[CHUNK];
+	}
+
+	long packed(int i) {
+		return packed[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	long packedHigh(int i) {
+		return twoWords ? packedHigh[i >>> CHUNK_BITS][i & MASK] : 0;
+	}
+
+	int parent(int i) {
+		return parent[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	int g(int i) {
+		return g[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	double h(int i) {
+		return h[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	/**
+	 * @param i
+	 * @return the estimated length of a solution through the node, g+h.
+	 */
+	double f(int i) {
+		return g(i) + h(i);
+	}
+
+	int blank(int i) {
+		return blank[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	int lastMove(int i) {
+		return lastMove[i >>> CHUNK_BITS][i & MASK];
+	}
+
+	/**
+	 * @return number of the nodes stored.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return memory taken by the allocated chunks, in bytes.
+	 */
+	long bytes() {
+		return (long) packed.length*CHUNK*((twoWords ? 16 : 8)+4+2+4+1+1);
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Table of the best node found for every configuration.
+ * Like the ClosedSet, implemented as an open-addressing hash table keyed on the packed configuration,
+ * but keeping the node itself so the path leading to it can be recovered.
+ */
+public class NodeTable {
+
+	private long[] keys;
+	private long[] keysHigh;
+	private GameStateNode[] nodes;
+	private int mask;
+	private int size;
+
+	/**
+	 * Constructor.
+	 * Starts with a small table that grows as needed.
+	 */
+	NodeTable(){
+		keys = new long[1<<11];
+		keysHigh = new long[keys.length];
+		nodes = new GameStateNode[keys.length];
+		mask = keys.length-1;
+		size = 0;
+	}
+
+	/**
+	 * Get the node recorded for a configuration.
+	 * @param gs
+	 * @return the node reached in the fewest steps, null if the configuration was not recorded.
+	 */
+	public GameStateNode get(GameState gs) {
+		long key = gs.getPacked();
+		long keyHigh = gs.getPackedHigh();
+		int i = slot(key, keyHigh);
+		while(nodes[i] != null) {
+			if(keys[i] == key && keysHigh[i] == keyHigh) return nodes[i];
+			i = (i+1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Record a node unless its configuration has already been reached in as few steps.
+	 * @param gsn
+	 * @return true if the node was recorded, false if it is dominated by an earlier one and should be dropped.
+	 */
+	public boolean offer(GameStateNode gsn) {
+		long key = gsn.getGameState().getPacked();
+		long keyHigh = gsn.getGameState().getPackedHigh();
+		int i = slot(key, keyHigh);
+		while(nodes[i] != null) {
+			if(keys[i] == key && keysHigh[i] == keyHigh) {
+				if(nodes[i].getSteps() <= gsn.getSteps()) return false;
+				nodes[i] = gsn;
+				return true;
+			}
+			i = (i+1) & mask;
+		}
+		keys[i] = key;
+		keysHigh[i] = keyHigh;
+		nodes[i] = gsn;
+		size++;
+		if(size*2 > keys.length) grow();
+		return true;
+	}
+
+	/**
+	 * @return number of configurations recorded.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Double the table and reinsert all the entries.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldKeysHigh = keysHigh;
+		GameStateNode[] oldNodes = nodes;
+		keys = new long[oldKeys.length*2];
+		keysHigh = new long[oldKeys.length*2];
+		nodes = new GameStateNode[oldKeys.length*2];
+		mask = keys.length-1;
+		for(int j = 0; j<oldKeys.length; j++) {
+			if(oldNodes[j] == null) continue;
+			int i = slot(oldKeys[j], oldKeysHigh[j]);
+			while(nodes[i] != null) i = (i+1) & mask;
+			keys[i] = oldKeys[j];
+			keysHigh[i] = oldKeysHigh[j];
+			nodes[i] = oldNodes[j];
+		}
+	}
+
+	/**
+	 * @param key
+	 * @param keyHigh
+	 * @return home slot of the key.
+	 */
+	private int slot(long key, long keyHigh) {
+		long h = (key ^ keyHigh * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * An interface for the open list of the search,
+ * a priority queue returning the node with the lowest distance first.
+ */
+public interface OpenList {
+	/**
+	 * Insert a node.
+	 * @param gsn, node to be inserted.
+	 */
+	void add(GameStateNode gsn);
+	/**
+	 * @return the node to be expanded next without removing it, null if the list is empty.
+	 */
+	GameStateNode peek();
+	/**
+	 * @return the node to be expanded next, removed from the list, null if the list is empty.
+	 */
+	GameStateNode poll();
+	/**
+	 * @return number of nodes in the list.
+	 */
+	int size();
+	/**
+	 * @return true if there is no node in the list.
+	 */
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+}
@@ -0,0 +1,54 @@
+import java.io.File;
+
+/**
+ * Perfect heuristic returning the exact number of moves to the target, read from a DistanceOracle.
+ * The table is loaded when the heuristic is first compared against a target,
+ * and reloaded whenever the target changes.
+ */
+public class OracleHeuristic implements HeuristicMethod {
+
+	private File directory;
+	private volatile DistanceOracle oracle;
+
+	/**
+	 * Constructor.
+	 * Stores the tables in the working directory.
+	 */
+	OracleHeuristic(){
+		this(new File("."));
+	}
+	/**
+	 * Constructor.
+	 * @param directory, where the tables are stored.
+	 */
+	OracleHeuristic(File directory){
+		this.directory = directory;
+	}
+
+	public double compare(GameState gs, GameState target) {
+		return getOracle(target).distance(gs);
+	}
+
+	/**
+	 * Get the table for a target, loading it if the heuristic holds another one.
+	 * @param target
+	 * @return DistanceOracle
+	 */
+	DistanceOracle getOracle(GameState target) {
+		DistanceOracle o = oracle;
+		if(o == null || !target.equals(o.getTarget())) o = load(target);
+		return o;
+	}
+
+	/**
+	 * Load or build the table for a target.
+	 * @param target
+	 * @return DistanceOracle
+	 */
+	private synchronized DistanceOracle load(GameState target) {
+		if(oracle == null || !target.equals(oracle.getTarget())) {
+			oracle = new DistanceOracle(target, directory);
+		}
+		return oracle;
+	}
+}
@@ -0,0 +1,100 @@
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An instances of this class solve a specific 8-puzzle without searching.
+ * Starting from the initial state, a child one move closer to the target is picked
+ * using a DistanceOracle until the target is reached, which gives an optimal path
+ * in as many steps as the path is long.
+ * Can be ran as a thread.
+ */
+public class OracleSolver implements SearchEngine {
+
+	private GameStateNode root;
+	private String name;
+	private int depthLimit;
+	private File directory;
+	private DistanceOracle oracle;
+
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * Stores the tables in the working directory.
+	 * @param initialState, root node created with the target.
+	 * @param name
+	 * @param depthLimit, no solution is returned if the optimal one is longer.
+	 */
+	OracleSolver(GameStateNode initialState, String name, int depthLimit){
+		this(initialState, name, depthLimit, new File("."));
+	}
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target.
+	 * @param name
+	 * @param depthLimit, no solution is returned if the optimal one is longer.
+	 * @param directory, where the tables are stored.
+	 */
+	OracleSolver(GameStateNode initialState, String name, int depthLimit, File directory){
+		this.root = initialState;
+		this.name = name;
+		this.depthLimit = depthLimit;
+		this.directory = directory;
+		solution = null;
+	}
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target.
+	 * @param name
+	 * @param depthLimit, no solution is returned if the optimal one is longer.
+	 * @param oracle, the table of the target, shared with other solvers.
+	 */
+	OracleSolver(GameStateNode initialState, String name, int depthLimit, DistanceOracle oracle){
+		this(initialState, name, depthLimit, new File("."));
+		this.oracle = oracle;
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+
+		DistanceOracle oracle = this.oracle != null ? this.oracle : new DistanceOracle(root.getTarget(), directory);
+		GameStateNode gsn = root;
+		int dist = oracle.distance(gsn.getGameState());
+		// the target cannot be reached from the other half of the configurations
+		if(dist != DistanceOracle.UNREACHABLE && dist <= depthLimit) {
+			while(gsn != null && dist > 0) {
+				int nOfChildren = gsn.makeChildren();
+				GameStateNode next = null;
+				for(int i = 0; i<nOfChildren; i++) {
+					GameStateNode child = gsn.getChild(i);
+					if(oracle.distance(child.getGameState()) == dist-1) {
+						next = child;
+						break;
+					}
+				}
+				// a table without a closer child is broken, no solution is better than a wrong one
+				gsn = next;
+				dist--;
+			}
+			solution = gsn;
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		Progress.report(name, "finished.");
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+}
@@ -0,0 +1,275 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * An instances of this class represent a parallel A* attempt to solve a specific 8-puzzle,
+ * following hash distributed A* (HDA*).
+ * Every configuration is owned by one of the workers, chosen by its hash. A worker keeps the open list
+ * and the table of reached configurations for the configurations it owns, and sends the children it
+ * generates to their owners through lock-free mailboxes.
+ *
+ * The search ends when every worker has run out of nodes better than the best solution found
+ * and no node is on its way between workers. The solution is then optimal for admissible heuristics.
+ * An idle worker parks until a node is sent to it or the search ends, so it leaves its processor to others.
+ * Can be ran as a thread, the workers run in threads of their own.
+ * A worker failing ends the search, and its exception is thrown by the thread which started the workers.
+ */
+public class ParallelSearch implements SearchEngine {
+
+	/**
+	 * Interval at which the budget is checked while the workers run.
+	 */
+	private static final long CHECK_MILLIS = 10;
+	/**
+	 * Longest time an idle worker is parked, a safety net as the worker is unparked when needed.
+	 */
+	private static final long PARK_NANOS = 100_000_000;
+
+	private GameStateNode root;
+	private String name;
+	private int depthLimit;
+	private Worker[] workers;
+
+	// termination detection
+	private AtomicLong inFlight;
+	private AtomicLong received;
+	private AtomicInteger idle;
+	private volatile boolean done;
+	private Throwable failure;
+	private LongAdder expanded;
+	private Budget budget;
+
+	private volatile int bestLength;
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * A worker owning a part of the search space.
+	 */
+	private class Worker implements Runnable {
+		private OpenList open;
+		private NodeTable reached;
+		private ConcurrentLinkedQueue<GameStateNode> mailbox;
+		private boolean isIdle;
+		// set while the worker is parked or about to park, so that a sender wakes it
+		private volatile boolean sleeping;
+		private volatile Thread thread;
+
+		Worker(OpenList open){
+			this.open = open;
+			this.reached = new NodeTable();
+			this.mailbox = new ConcurrentLinkedQueue<GameStateNode>();
+			this.isIdle = false;
+		}
+
+		public void run() {
+			thread = Thread.currentThread();
+			try {
+				search();
+			} catch (RuntimeException | Error e) {
+				// kept for the thread which started the workers, the search cannot end without this worker
+				failed(e);
+			} finally {
+				finish();
+			}
+		}
+
+		/**
+		 * Process the nodes of the worker until the search ends.
+		 */
+		private void search() {
+			while(!done) {
+				if(!mailbox.isEmpty()) {
+					setIdle(false);
+					GameStateNode gsn;
+					while((gsn = mailbox.poll()) != null) {
+						received.incrementAndGet();
+						if(reached.offer(gsn)) open.add(gsn);
+						inFlight.decrementAndGet();
+					}
+				}
+				GameStateNode gsn = open.poll();
+				if(gsn == null || gsn.getDistance() >= bestLength) {
+					// nothing better than the best solution is left, the remaining nodes can be dropped
+					while(gsn != null) gsn = open.poll();
+					setIdle(true);
+					checkTermination();
+					sleeping = true;
+					// a node sent before the flag was set is seen here, one sent after it unparks the worker
+					if(mailbox.isEmpty() && !done) LockSupport.parkNanos(this, PARK_NANOS);
+					sleeping = false;
+					continue;
+				}
+				// a shorter path to this configuration was found after it had been queued
+				if(reached.get(gsn.getGameState()) != gsn) continue;
+				if(gsn.isSolution()) {
+					offerSolution(gsn);
+					continue;
+				}
+				if(gsn.getSteps() >= depthLimit) continue;
+
+				expanded.increment();
+				int nOfChildren = gsn.makeChildren();
+				for(int i = 0; i<nOfChildren; i++) {
+					GameStateNode child = gsn.getChild(i);
+					// measured here, so the owner does not touch the parent
+					if(child.getDistance() >= bestLength) continue;
+					send(child);
+				}
+			}
+		}
+
+		/**
+		 * Update the number of idle workers.
+		 * @param value
+		 */
+		private void setIdle(boolean value) {
+			if(isIdle == value) return;
+			isIdle = value;
+			if(value) idle.incrementAndGet();
+			else idle.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 * @param threads, number of workers.
+	 * @param openLists, creates an empty open list for every worker.
+	 */
+	ParallelSearch(GameStateNode initialState, String name, int depthLimit, int threads, Supplier<OpenList> openLists){
+		this.root = initialState;
+		this.name = name;
+		this.depthLimit = depthLimit;
+		workers = new Worker[threads];
+		for(int i = 0; i<threads; i++) workers[i] = new Worker(openLists.get());
+		inFlight = new AtomicLong();
+		received = new AtomicLong();
+		idle = new AtomicInteger();
+		expanded = new LongAdder();
+		solution = null;
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started with "+workers.length+" workers.");
+
+		bestLength = Integer.MAX_VALUE;
+		done = false;
+		budget.start();
+		send(root);
+		Thread[] threads = new Thread[workers.length];
+		for(int i = 0; i<workers.length; i++) {
+			threads[i] = new Thread(workers[i], name+" worker "+i);
+			threads[i].start();
+		}
+		try {
+			// the workers never check the budget, the thread which started them watches it instead
+			for(Thread th:threads) {
+				while(th.isAlive()) {
+					th.join(CHECK_MILLIS);
+					if(!done && budget.exceeded(expanded.sum(), Budget.NODE_BYTES*received.get())) finish();
+				}
+			}
+			// a solution found before the search was stopped may not be the shortest one
+			if(budget.getStopReason() != null) {
+				synchronized(this) {
+					solution = null;
+				}
+			}
+		} catch (InterruptedException e) {
+			finish();
+			Thread.currentThread().interrupt();
+		}
+		synchronized(this) {
+			if(failure instanceof Error) throw (Error) failure;
+			if(failure != null) throw (RuntimeException) failure;
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Send a node to the worker owning its configuration.
+	 * @param gsn
+	 */
+	private void send(GameStateNode gsn) {
+		int owner = Math.floorMod(gsn.getGameState().hashCode(), workers.length);
+		inFlight.incrementAndGet();
+		Worker w = workers[owner];
+		w.mailbox.add(gsn);
+		if(w.sleeping) LockSupport.unpark(w.thread);
+	}
+
+	/**
+	 * End the search and wake the idle workers, so that they see it.
+	 */
+	private void finish() {
+		done = true;
+		for(Worker w:workers) {
+			if(w.thread != null) LockSupport.unpark(w.thread);
+		}
+	}
+
+	/**
+	 * Record the first failure of a worker, it is thrown once the other workers have stopped.
+	 * @param e
+	 */
+	private synchronized void failed(Throwable e) {
+		if(failure == null) failure = e;
+	}
+
+	/**
+	 * Record a solution if it is shorter than the best one found.
+	 * @param gsn
+	 */
+	private synchronized void offerSolution(GameStateNode gsn) {
+		if(gsn.getSteps() < bestLength) {
+			solution = gsn;
+			bestLength = gsn.getSteps();
+		}
+	}
+
+	/**
+	 * End the search if all workers are idle and no node is being sent.
+	 * The count of received nodes must not change during the check,
+	 * otherwise a worker may have picked up work after the idle workers were counted.
+	 */
+	private void checkTermination() {
+		long before = received.get();
+		if(idle.get() == workers.length && inFlight.get() == 0 && received.get() == before) {
+			finish();
+		}
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+
+	public synchronized GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+}
@@ -0,0 +1,187 @@
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A pattern database for a group of tiles and a specific target.
+ * Stores, for every placement of the tiles of the pattern, the lowest number of moves of those tiles
+ * needed to bring them to their target cells. Moves of other tiles are not counted,
+ * so the values of databases built for disjoint patterns can be added up.
+ *
+ * The table holds one byte per placement, indexed by a perfect hash of the positions of the tiles.
+ * It is saved to a file and memory-mapped, so solvers running in different processes share it.
+ */
+public class PatternDatabase {
+
+	private BoardSize size;
+	private int[] tiles;
+	private int[] patternIndex;
+	private ByteBuffer table;
+
+	/**
+	 * Constructor.
+	 * Loads the table from a file in the directory, or builds and saves it if there is none.
+	 * @param target, the target the distances are measured to.
+	 * @param tiles, IDs of the tiles of the pattern, the blank tile must not be included.
+	 * @param directory, where the table is stored.
+	 */
+	PatternDatabase(GameState target, int[] tiles, File directory){
+		this.size = target.getSize();
+		this.tiles = tiles.clone();
+		patternIndex = new int[size.cells];
+		Arrays.fill(patternIndex, -1);
+		for(int i = 0; i<tiles.length; i++) patternIndex[tiles[i]] = i;
+
+		table = TableFile.loadOrBuild(new File(directory, fileName(target)), size(), () -> build(target));
+	}
+
+	/**
+	 * Look up the number of moves of the pattern's tiles needed to reach the target.
+	 * @param gs
+	 * @return int
+	 */
+	public int lookup(GameState gs) {
+		// cells of the pattern's tiles, 5 bits each, in the order of the pattern
+		long cells = 0;
+		for(int i = 0; i<size.cells; i++) {
+			int p = patternIndex[gs.tileAt(i)];
+			if(p >= 0) cells |= ((long) i) << (5*p);
+		}
+		int rank = 0;
+		int used = 0;
+		for(int i = 0; i<tiles.length; i++) {
+			int p = (int) (cells >>> (5*i)) & 0x1F;
+			rank = rank*(size.cells-i) + p - Integer.bitCount(used & ((1<<p)-1));
+			used |= 1<<p;
+		}
+		return table.get(rank);
+	}
+
+	/**
+	 * @return number of entries of the table.
+	 */
+	int size() {
+		int n = 1;
+		for(int i = 0; i<tiles.length; i++) n *= size.cells-i;
+		return n;
+	}
+
+	/**
+	 * Perfect hash of the positions of the pattern's tiles.
+	 * @param pos, cell of each of the pattern's tiles.
+	 * @return int between 0 and size()-1
+	 */
+	private int rank(int[] pos) {
+		int rank = 0;
+		int used = 0;
+		for(int i = 0; i<pos.length; i++) {
+			int p = pos[i];
+			rank = rank*(size.cells-i) + p - Integer.bitCount(used & ((1<<p)-1));
+			used |= 1<<p;
+		}
+		return rank;
+	}
+
+	/**
+	 * Inverse of rank().
+	 * @param rank
+	 * @param pos, array to be filled with the cell of each of the pattern's tiles.
+	 */
+	private void unrank(int rank, int[] pos) {
+		int[] digits = new int[pos.length];
+		for(int i = pos.length-1; i>=0; i--) {
+			digits[i] = rank % (size.cells-i);
+			rank /= size.cells-i;
+		}
+		int used = 0;
+		for(int i = 0; i<pos.length; i++) {
+			int p = -1;
+			for(int free = digits[i]; free >= 0; free--) {
+				p++;
+				while((used & (1<<p)) != 0) p++;
+			}
+			pos[i] = p;
+			used |= 1<<p;
+		}
+	}
+
+	/**
+	 * Breadth first search backwards from the target over placements of the pattern's tiles and the blank tile.
+	 * Moving a tile of the pattern costs 1, moving any other tile costs 0.
+	 * @param target
+	 * @return the table
+	 */
+	private byte[] build(GameState target) {
+		int n = size();
+		int cells = size.cells;
+		// distances of placements of the pattern's tiles and the blank tile, 0xFF if not reached yet
+		byte[] dist = new byte[n*cells];
+		Arrays.fill(dist, (byte) 0xFF);
+
+		int[] pos = new int[tiles.length];
+		for(int i = 0; i<tiles.length; i++) pos[i] = target.getTileIndex(tiles[i]);
+		int start = rank(pos)*cells + target.getBlankIndex();
+		dist[start] = 0;
+
+		ArrayDeque<Integer> deque = new ArrayDeque<Integer>();
+		deque.add(start);
+		while(!deque.isEmpty()) {
+			int state = deque.poll();
+			int blank = state % cells;
+			int d = dist[state] & 0xFF;
+			unrank(state / cells, pos);
+
+			for(int move:size.legalMoves(blank)) {
+				int cell = size.move(move, blank);
+				int moved = -1;
+				for(int i = 0; i<pos.length; i++) {
+					if(pos[i] == cell) moved = i;
+				}
+				int next;
+				int cost;
+				if(moved == -1) {
+					next = (state / cells)*cells + cell;
+					cost = 0;
+				} else {
+					pos[moved] = blank;
+					next = rank(pos)*cells + cell;
+					pos[moved] = cell;
+					cost = 1;
+				}
+				if(d+cost < (dist[next] & 0xFF)) {
+					dist[next] = (byte) (d+cost);
+					if(cost == 0) deque.addFirst(next);
+					else deque.addLast(next);
+				}
+			}
+		}
+
+		byte[] built = new byte[n];
+		for(int r = 0; r<n; r++) {
+			int min = 0xFF;
+			for(int b = 0; b<cells; b++) min = Math.min(min, dist[r*cells+b] & 0xFF);
+			built[r] = (byte) (min == 0xFF ? 0 : min);
+		}
+		return built;
+	}
+
+	/**
+	 * @param target
+	 * @return name of the file the table for the target is stored in.
+	 */
+	private String fileName(GameState target) {
+		StringBuilder sb = new StringBuilder("pdb_");
+		sb.append(size.toString());
+		sb.append("_");
+		sb.append(Long.toHexString(target.getPackedHigh()));
+		sb.append(String.format("%016x", target.getPacked()));
+		sb.append("_");
+		for(int i = 0; i<tiles.length; i++) {
+			if(i>0) sb.append("-");
+			sb.append(tiles[i]);
+		}
+		sb.append(".bin");
+		return sb.toString();
+	}
+}
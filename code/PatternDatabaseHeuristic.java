@@ -0,0 +1,74 @@
+import java.io.File;
+
+/**
+ * Heuristic adding up the values of pattern databases built for disjoint groups of tiles.
+ * The databases are loaded when the heuristic is first compared against a target,
+ * and reloaded whenever the target changes.
+ */
+public class PatternDatabaseHeuristic implements HeuristicMethod {
+
+	private int[][] patterns;
+	private File directory;
+	private volatile GameState lastTarget;
+	private PatternDatabase[] databases;
+
+	/**
+	 * Constructor.
+	 * Uses the default patterns and stores the databases in the working directory.
+	 */
+	PatternDatabaseHeuristic(){
+		this(null, new File("."));
+	}
+	/**
+	 * Constructor.
+	 * @param patterns, disjoint groups of tile IDs, the blank tile must not be included.
+	 * null to use the default patterns for the size of the target.
+	 * @param directory, where the databases are stored.
+	 */
+	PatternDatabaseHeuristic(int[][] patterns, File directory){
+		this.patterns = patterns;
+		this.directory = directory;
+	}
+
+	public double compare(GameState gs, GameState target) {
+		if(!target.equals(lastTarget)) load(target);
+		int d = 0;
+		for(PatternDatabase pdb:databases) {
+			d += pdb.lookup(gs);
+		}
+		return d;
+	}
+
+	/**
+	 * Split the tiles into groups of consecutive IDs,
+	 * two groups of four on the 3x3 board, groups of five on boards of up to 16 cells
+	 * and groups of four on larger boards to keep the tables small.
+	 * @param size
+	 * @return disjoint groups covering all the tiles but the blank tile.
+	 */
+	static int[][] defaultPatterns(BoardSize size) {
+		int group = size.cells > 9 && size.cells <= 16 ? 5 : 4;
+		int tiles = size.cells-1;
+		int[][] patterns = new int[(tiles+group-1)/group][];
+		for(int p = 0; p<patterns.length; p++) {
+			patterns[p] = new int[Math.min(group, tiles-p*group)];
+			for(int i = 0; i<patterns[p].length; i++) patterns[p][i] = p*group+i+1;
+		}
+		return patterns;
+	}
+
+	/**
+	 * Load or build the databases for a target.
+	 * @param target
+	 */
+	private synchronized void load(GameState target) {
+		if(target.equals(lastTarget)) return;
+		int[][] used = patterns != null ? patterns : defaultPatterns(target.getSize());
+		PatternDatabase[] loaded = new PatternDatabase[used.length];
+		for(int i = 0; i<used.length; i++) {
+			loaded[i] = new PatternDatabase(target, used[i], directory);
+		}
+		databases = loaded;
+		lastTarget = target;
+	}
+}
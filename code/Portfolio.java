@@ -0,0 +1,89 @@
+import java.util.List;
+
+/**
+ * Races several searches of the same puzzle, each in a thread of its own.
+ * The first search to finish with a proven result, an optimal solution or the proof that there is
+ * none within the depth limit, wins and cancels the others through their budgets,
+ * so the slowest search no longer decides how long the run takes.
+ * Searches which were stopped, or whose solutions are not proven optimal, never win.
+ */
+public class Portfolio {
+
+	private List<SearchEngine> engines;
+	private SearchEngine winner;
+
+	/**
+	 * Constructor.
+	 * @param engines, searches of the same puzzle, not started yet.
+	 */
+	Portfolio(List<SearchEngine> engines){
+		this.engines = engines;
+		winner = null;
+	}
+
+	/**
+	 * Start the searches in the scope, the caller waits for them by joining the scope.
+	 * @param scope
+	 */
+	void fork(SearchScope scope) {
+		for(SearchEngine engine:engines) {
+			scope.fork(engine, () -> finished(engine));
+		}
+	}
+
+	/**
+	 * Called by every search once it stops, the first one with a proven result cancels the others.
+	 * @param engine
+	 */
+	private synchronized void finished(SearchEngine engine) {
+		if(winner != null) return;
+		Budget budget = engine.getBudget();
+		if(budget != null && budget.getStopReason() != null) return;
+		if(engine.getSolution() != null && engine.getBound() > 1) return;
+		// a search which is not complete does not prove that there is no solution either
+		if(Double.isInfinite(engine.getBound())) return;
+		winner = engine;
+		Progress.report(engine.getName(), "won the race.");
+		for(SearchEngine other:engines) {
+			if(other != engine && other.getBudget() != null) other.getBudget().cancel();
+		}
+	}
+
+	/**
+	 * @return the search which won, null if none finished with a proven result.
+	 */
+	synchronized SearchEngine getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Describe the race, a line for every search telling how it ended and what it used.
+	 * @return String
+	 */
+	synchronized String summary() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(winner == null ? "No search proved its result.\n" : "Winner: "+winner.getName()+"\n");
+		for(SearchEngine engine:engines) {
+			Budget budget = engine.getBudget();
+			String reason = budget == null ? null : budget.getStopReason();
+			sb.append("\t");
+			sb.append(engine.getName());
+			sb.append(": ");
+			sb.append(engine == winner ? "won" : reason != null ? reason : "finished");
+			sb.append(" after ");
+			sb.append(engine.getDuration());
+			SearchStatistics stats = engine.getStatistics();
+			long nodes = stats != null ? stats.getExpanded() : budget != null ? budget.getNodes() : -1;
+			if(nodes >= 0) {
+				sb.append(", ");
+				sb.append(nodes);
+				sb.append(" nodes expanded");
+			}
+			if(budget != null && budget.getBytes() > 0) {
+				sb.append(String.format(", about %.1f MB", budget.getBytes()/1e6));
+			}
+			sb.append("\n");
+		}
+		return sb.toString();
+	}
+}
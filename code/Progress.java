@@ -0,0 +1,34 @@
+import java.time.Instant;
+
+/**
+ * Prints the progress messages of the searches to the console.
+ * The messages can be switched off, e.g. when many puzzles are solved at once.
+ */
+public class Progress {
+
+	private static volatile boolean enabled = true;
+
+	/**
+	 * Private constructor, the class only holds static methods.
+	 */
+	private Progress() {
+	}
+
+	/**
+	 * Switch the messages on or off.
+	 * @param value
+	 */
+	static void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	/**
+	 * Print a message of a search.
+	 * @param name, name of the search.
+	 * @param message, e.g. "started."
+	 */
+	static void report(String name, String message) {
+		if(!enabled) return;
+		System.out.println(""+ Instant.now().toString() +":\n\tThread "+name+" "+message);
+	}
+}
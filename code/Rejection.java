@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * Reasons for rejecting a puzzle before it is searched.
+ * The checks take time linear in the number of cells, so that an unsolvable puzzle
+ * costs next to nothing instead of exhausting the whole search space within the depth limit.
+ */
+public enum Rejection {
+	/**
+	 * A configuration is not a permutation of the tiles 0 to n-1.
+	 */
+	INVALID_PERMUTATION("invalid-permutation"),
+	/**
+	 * The initial and the target configurations have different sizes.
+	 */
+	SIZE_MISMATCH("size-mismatch"),
+	/**
+	 * The target cannot be reached from the initial configuration.
+	 */
+	UNSOLVABLE("unsolvable"),
+	/**
+	 * Every solution is longer than the depth limit.
+	 */
+	BEYOND_DEPTH_LIMIT("beyond-depth-limit");
+
+	private final String code;
+
+	/**
+	 * Constructor.
+	 * @param code, machine readable name of the reason.
+	 */
+	Rejection(String code) {
+		this.code = code;
+	}
+
+	/**
+	 * @return machine readable name of the reason, e.g. "unsolvable".
+	 */
+	String code() {
+		return code;
+	}
+
+	/**
+	 * Check a puzzle before it is searched.
+	 *
+	 * A move swaps the blank tile with a neighbour, changing both the parity of the permutation of the cells
+	 * and the parity of the position of the blank tile, a puzzle is therefore only solvable if the permutation
+	 * taking the initial configuration to the target is as odd as the Manhattan distance the blank tile travels.
+	 * The Manhattan distance of all tiles gives the lower bound compared with the depth limit.
+	 * @param start, the initial configuration.
+	 * @param target
+	 * @param depthLimit, longest solution looked for.
+	 * @return the reason, null if the puzzle may be searched.
+	 */
+	static Rejection check(GameState start, GameState target, int depthLimit) {
+		BoardSize size = start.getSize();
+		if(target.getSize() != size) return SIZE_MISMATCH;
+		int[] from = cellsOf(start);
+		int[] to = cellsOf(target);
+		if(from == null || to == null) return INVALID_PERMUTATION;
+
+		// cycles of the permutation taking every tile to its cell in the target
+		boolean[] visited = new boolean[size.cells];
+		int cycles = 0;
+		for(int i = 0; i<size.cells; i++) {
+			if(visited[i]) continue;
+			cycles++;
+			for(int j = i; !visited[j]; j = to[start.tileAt(j)]) visited[j] = true;
+		}
+		int blankDistance = Math.abs(size.x(from[0])-size.x(to[0])) + Math.abs(size.y(from[0])-size.y(to[0]));
+		if(((size.cells-cycles) & 1) != (blankDistance & 1)) return UNSOLVABLE;
+
+		int bound = 0;
+		for(int t = 1; t<size.cells; t++) {
+			bound += Math.abs(size.x(from[t])-size.x(to[t])) + Math.abs(size.y(from[t])-size.y(to[t]));
+		}
+		if(bound > depthLimit) return BEYOND_DEPTH_LIMIT;
+		return null;
+	}
+
+	/**
+	 * Find the cell of every tile.
+	 * @param gs
+	 * @return cells[tile], null if a tile is missing or repeated.
+	 */
+	private static int[] cellsOf(GameState gs) {
+		int n = gs.getSize().cells;
+		int[] cells = new int[n];
+		Arrays.fill(cells, -1);
+		for(int i = 0; i<n; i++) {
+			int t = gs.tileAt(i);
+			if(t >= n || cells[t] != -1) return null;
+			cells[t] = i;
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,192 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes reports and results on a thread of its own, so that the searches never wait for the disk.
+ *
+ * Records are queued by any thread and copied into a large direct buffer by the writer thread,
+ * which hands the buffer to a FileChannel when it is full, when the records go to another file,
+ * or when no more records are waiting. A file is truncated when the first record for it arrives.
+ * A full queue makes the producers wait, so memory stays bounded however fast the results come.
+ */
+class ReportWriter {
+
+	private static final int BUFFER_SIZE = 1<<20;
+	private static final int QUEUE_SIZE = 4096;
+
+	/**
+	 * A record and the file it goes to, null for the standard output.
+	 */
+	private static class Record {
+		final Path file;
+		final byte[] bytes;
+
+		Record(Path file, byte[] bytes) {
+			this.file = file;
+			this.bytes = bytes;
+		}
+	}
+
+	private static final Record END = new Record(null, new byte[0]);
+
+	private BlockingQueue<Record> queue;
+	private Thread thread;
+
+	// owned by the writer thread
+	private ByteBuffer buffer;
+	private HashMap<Path, FileChannel> channels;
+	private HashSet<Path> failed;
+	private Path current;
+	private FileChannel console;
+
+	/**
+	 * Constructor, starts the writer thread.
+	 */
+	ReportWriter(){
+		queue = new ArrayBlockingQueue<Record>(QUEUE_SIZE);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		channels = new HashMap<Path, FileChannel>();
+		failed = new HashSet<Path>();
+		thread = new Thread(this::drain, "report writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queue text.
+	 * @param file, null for the standard output.
+	 * @param text
+	 */
+	void write(Path file, String text) {
+		write(file, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Queue bytes.
+	 * @param file, null for the standard output.
+	 * @param bytes, must not be changed afterwards.
+	 */
+	void write(Path file, byte[] bytes) {
+		try {
+			queue.put(new Record(file, bytes));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Write everything queued and close the files.
+	 * @return false if a file could not be written.
+	 */
+	boolean close() {
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return failed.isEmpty();
+	}
+
+	/**
+	 * Loop of the writer thread.
+	 */
+	private void drain() {
+		ArrayList<Record> batch = new ArrayList<Record>();
+		try {
+			while(true) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				for(Record r:batch) {
+					if(r == END) {
+						flush();
+						for(FileChannel channel:channels.values()) close(channel);
+						return;
+					}
+					append(r);
+				}
+				batch.clear();
+				flush();
+			}
+		} catch (InterruptedException e) {
+			// the program is ending
+		}
+	}
+
+	/**
+	 * Copy a record into the buffer.
+	 * @param r
+	 */
+	private void append(Record r) {
+		if(!Objects.equals(r.file, current)) {
+			flush();
+			current = r.file;
+		}
+		int offset = 0;
+		while(offset < r.bytes.length) {
+			int n = Math.min(buffer.remaining(), r.bytes.length-offset);
+			buffer.put(r.bytes, offset, n);
+			offset += n;
+			if(!buffer.hasRemaining()) flush();
+		}
+	}
+
+	/**
+	 * Write the buffer to the current file.
+	 */
+	private void flush() {
+		buffer.flip();
+		if(buffer.hasRemaining() && !failed.contains(current)) {
+			try {
+				FileChannel channel = channel(current);
+				while(buffer.hasRemaining()) channel.write(buffer);
+			} catch (IOException e) {
+				System.out.println("Couldn't write to "+(current == null ? "the console" : current.toString())+".");
+				failed.add(current);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @param file, null for the standard output.
+	 * @return the channel of the file, opened on the first use.
+	 * @throws IOException
+	 */
+	@SuppressWarnings("resource")
+	private FileChannel channel(Path file) throws IOException {
+		if(file == null) {
+			if(console == null) console = new FileOutputStream(FileDescriptor.out).getChannel();
+			return console;
+		}
+		FileChannel channel = channels.get(file);
+		if(channel == null) {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			channels.put(file, channel);
+		}
+		return channel;
+	}
+
+	/**
+	 * @param channel
+	 */
+	private void close(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			System.out.println("Couldn't close a report file.");
+		}
+	}
+}
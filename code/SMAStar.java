@@ -0,0 +1,302 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * An instances of this class represent a simplified memory-bounded A* (SMA*) attempt to solve a specific 8-puzzle.
+ * At most a fixed number of nodes is kept in memory. The successors of a node are generated one at a time,
+ * the most promising first, and once the limit is reached the leaf with the highest f-value is forgotten,
+ * its f-value being kept by its parent, which regenerates it only when no other node looks better.
+ * The f-value of a node is backed up to the lowest f-value of its successors, so that a forgotten subtree
+ * is not searched again before the rest of the tree has been explored to the same cost.
+ *
+ * The solution is optimal for admissible heuristics, as the limit is raised to hold at least the path
+ * to the depth limit. The nodes are linked to their parents only, so forgotten nodes are released.
+ * Can be ran as a thread.
+ */
+public class SMAStar implements SearchEngine {
+
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * Default number of nodes kept in memory.
+	 */
+	static final long DEFAULT_NODES = 100_000;
+
+	/**
+	 * Orders the nodes which may generate a successor by the lowest f-value of their missing successors,
+	 * preferring the deeper ones.
+	 */
+	private static final Comparator<Entry> BEST = (Entry a, Entry b)->{
+		int c = Double.compare(a.key, b.key);
+		if(c != 0) return c;
+		c = Integer.compare(b.g, a.g);
+		if(c != 0) return c;
+		return Long.compare(a.id, b.id);
+	};
+	/**
+	 * Orders the leaves by their f-value, the highest and the shallowest first.
+	 */
+	private static final Comparator<Entry> WORST = (Entry a, Entry b)->{
+		int c = Double.compare(b.f, a.f);
+		if(c != 0) return c;
+		c = Integer.compare(a.g, b.g);
+		if(c != 0) return c;
+		return Long.compare(a.id, b.id);
+	};
+
+	/**
+	 * A node of the search tree kept in memory.
+	 */
+	private static class Entry {
+		final GameStateNode node;
+		final Entry parent;
+		final int move;
+		final int g;
+		final long id;
+		/**
+		 * Lowest f-value of the solutions through the node.
+		 */
+		double f;
+		/**
+		 * Lowest f-value of the successors which are not in memory, infinity if there are none.
+		 */
+		double key;
+		/**
+		 * Successors in memory and the f-values of all successors, indexed by their moves,
+		 * null until the node is expanded.
+		 */
+		Entry[] children;
+		double[] childF;
+		int inMemory;
+
+		Entry(GameStateNode node, Entry parent, int move, double f, long id) {
+			this.node = node;
+			this.parent = parent;
+			this.move = move;
+			this.g = node.getSteps();
+			this.f = f;
+			this.key = f;
+			this.id = id;
+		}
+	}
+
+	private Entry root;
+	private GameState target;
+	private HeuristicMethod heuristic;
+	private String name;
+	private int depthLimit;
+	private long nodeLimit;
+
+	private TreeSet<Entry> open;
+	private TreeSet<Entry> leaves;
+	private long nodes;
+	private long ids;
+	private SearchStatistics stats;
+	private Budget budget;
+
+	private GameStateNode solution;
+	private Duration d;
+
+	/**
+	 * Constructor.
+	 * @param initialState, root node created with the target and the heuristic to be used.
+	 * @param name
+	 * @param depthLimit
+	 * @param nodeLimit, nodes kept in memory, raised to hold the path to the depth limit and its siblings.
+	 */
+	SMAStar(GameStateNode initialState, String name, int depthLimit, long nodeLimit){
+		this.target = initialState.getTarget();
+		this.heuristic = initialState.getHeuristic();
+		this.name = name;
+		this.depthLimit = depthLimit;
+		this.nodeLimit = Math.max(nodeLimit, depthLimit+2);
+		root = new Entry(initialState, null, -1, initialState.getDistance(), ids++);
+		solution = null;
+		stats = new SearchStatistics(name);
+		budget = new Budget();
+	}
+
+	public void run() {
+		Instant startTime = Instant.now();
+		Progress.report(name, "started.");
+		stats.start();
+		budget.start();
+		open = new TreeSet<Entry>(BEST);
+		leaves = new TreeSet<Entry>(WORST);
+		open.add(root);
+		leaves.add(root);
+		nodes = 1;
+		boolean full = false;
+		long count = 0;
+
+		while(!open.isEmpty()) {
+			Entry best = open.first();
+			// no solution can be found within the depth limit
+			if(best.key > depthLimit + EPSILON) break;
+			if(++count % Budget.CHECK_INTERVAL == 0 && budget.exceeded(stats.getExpanded(), Budget.NODE_BYTES*nodes)) break;
+
+			if(best.children == null) {
+				if(best.node.getGameState().equals(target)) {
+					solution = best.node;
+					break;
+				}
+				stats.expanded(best.f);
+				expand(best);
+				continue;
+			}
+			generate(best);
+			stats.open(open.size());
+			if(nodes > nodeLimit) {
+				if(!full) Progress.report(name, "reached the limit of "+nodeLimit+" nodes, forgetting the worst leaves.");
+				full = true;
+				forget(leaves.first());
+			}
+		}
+
+		d = Duration.between(startTime, Instant.now());
+		stats.finish(solution == null ? -1 : solution.getSteps());
+		if(budget.getStopReason() != null) Progress.report(name, "stopped: "+budget.getStopReason()+".");
+		else Progress.report(name, "finished.");
+	}
+
+	/**
+	 * Measure the successors of a node, without keeping them in memory.
+	 * A node at the depth limit has no successors and its f-value becomes infinite.
+	 * @param e
+	 */
+	private void expand(Entry e) {
+		open.remove(e);
+		leaves.remove(e);
+		e.children = new Entry[4];
+		e.childF = new double[4];
+		Arrays.fill(e.childF, Double.POSITIVE_INFINITY);
+		if(e.g < depthLimit) {
+			GameState gs = e.node.getGameState();
+			BoardSize size = gs.getSize();
+			int blank = gs.getBlankIndex();
+			for(int move:size.legalMoves(blank)) {
+				// never undo the previous move
+				if(move == BoardSize.UP-e.move) continue;
+				GameState childGS = gs.clone();
+				childGS.slide(size.move(move, blank));
+				// the f-value of a successor is never lower than its parent's
+				e.childF[move] = Math.max(e.f, e.g+1+heuristic.compare(childGS, target));
+			}
+		}
+		update(e);
+		leaves.add(e);
+		backUp(e.parent);
+	}
+
+	/**
+	 * Keep the most promising successor of a node which is not in memory.
+	 * @param e
+	 */
+	private void generate(Entry e) {
+		int move = -1;
+		for(int m = 0; m<4; m++) {
+			if(e.children[m] == null && (move == -1 || e.childF[m] < e.childF[move])) move = m;
+		}
+		GameState gs = e.node.getGameState();
+		BoardSize size = gs.getSize();
+		GameState childGS = gs.clone();
+		childGS.slide(size.move(move, gs.getBlankIndex()));
+		Entry child = new Entry(new GameStateNode(e.node, childGS, heuristic), e, move, e.childF[move], ids++);
+		stats.generated(1);
+
+		open.remove(e);
+		if(e.inMemory == 0) leaves.remove(e);
+		e.children[move] = child;
+		e.inMemory++;
+		update(e);
+		open.add(child);
+		leaves.add(child);
+		nodes++;
+	}
+
+	/**
+	 * Remove a leaf from memory, its parent keeps its f-value and may generate it again.
+	 * @param leaf
+	 */
+	private void forget(Entry leaf) {
+		Entry parent = leaf.parent;
+		open.remove(leaf);
+		leaves.remove(leaf);
+		open.remove(parent);
+		parent.children[leaf.move] = null;
+		parent.childF[leaf.move] = leaf.f;
+		parent.inMemory--;
+		update(parent);
+		if(parent.inMemory == 0) leaves.add(parent);
+		nodes--;
+	}
+
+	/**
+	 * Recompute the key of a node, which must not be in the open set, and add it back if it has successors to generate.
+	 * @param e
+	 */
+	private void update(Entry e) {
+		double key = Double.POSITIVE_INFINITY;
+		double f = Double.POSITIVE_INFINITY;
+		for(int m = 0; m<4; m++) {
+			double childF = e.children[m] == null ? e.childF[m] : e.children[m].f;
+			if(e.children[m] == null) key = Math.min(key, childF);
+			f = Math.min(f, childF);
+		}
+		e.key = key;
+		if(e.inMemory == 0 && f != e.f) {
+			// the order of the leaves depends on the f-value
+			boolean leaf = leaves.remove(e);
+			e.f = f;
+			if(leaf) leaves.add(e);
+		} else {
+			e.f = f;
+		}
+		if(key < Double.POSITIVE_INFINITY) open.add(e);
+	}
+
+	/**
+	 * Propagate the lowest f-value of the successors up the tree, as long as it changes.
+	 * @param e, the parent of a node whose f-value may have changed.
+	 */
+	private void backUp(Entry e) {
+		while(e != null) {
+			double f = Double.POSITIVE_INFINITY;
+			for(int m = 0; m<4; m++) f = Math.min(f, e.children[m] == null ? e.childF[m] : e.children[m].f);
+			if(f == e.f) return;
+			e.f = f;
+			e = e.parent;
+		}
+	}
+
+	public GameStateNode getSolution() {
+		return solution;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Duration getDuration() {
+		return d;
+	}
+
+	/**
+	 * Get the counters describing the cost of the search, a regenerated node being counted again.
+	 * @return SearchStatistics
+	 */
+	public SearchStatistics getStatistics() {
+		return stats;
+	}
+
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	public Budget getBudget() {
+		return budget;
+	}
+}
@@ -0,0 +1,60 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the statistics of running searches at a fixed interval.
+ * The searches themselves only update their counters, the printing happens on a separate daemon thread.
+ */
+public class SamplingReporter {
+
+	private List<SearchEngine> engines;
+	private Duration interval;
+	private ScheduledExecutorService timer;
+
+	/**
+	 * Constructor.
+	 * @param engines, the searches to be reported on, searches without statistics are skipped.
+	 * @param interval, time between two reports.
+	 */
+	SamplingReporter(List<SearchEngine> engines, Duration interval) {
+		this.engines = engines;
+		this.interval = interval;
+	}
+
+	/**
+	 * Start reporting.
+	 */
+	void start() {
+		timer = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+			Thread th = new Thread(r, "Sampling reporter");
+			th.setDaemon(true);
+			return th;
+		});
+		long nanos = interval.toNanos();
+		timer.scheduleAtFixedRate(this::report, nanos, nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stop reporting.
+	 */
+	void stop() {
+		if(timer != null) timer.shutdownNow();
+	}
+
+	/**
+	 * Print the statistics of every search which is running.
+	 */
+	private void report() {
+		for(SearchEngine se:engines) {
+			SearchStatistics s = se.getStatistics();
+			if(s == null || s.getLayer() < 0) continue;
+			Progress.report(se.getName(), "is expanding f-layer "+s.getLayer()+": expanded "+s.getExpanded()
+					+" nodes, generated "+s.getGenerated()+", pruned "+s.getDuplicates()
+					+" duplicates, open list peaked at "+s.getPeakOpen()
+					+", "+String.format("%.0f", s.getNodesPerSecond())+" nodes/s.");
+		}
+	}
+}
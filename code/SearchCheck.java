@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ * Checks the beam search on 3x3 boards scrambled from the target, including beams of a single node.
+ * Every solution found must be a chain of legal moves from the initial configuration to the target.
+ * Run with "java -cp 8-puzzle.jar SearchCheck", a failed check is printed and the exit status is 1.
+ */
+class SearchCheck {
+
+	private static final int BOARDS = 50;
+	private static final int SCRAMBLE = 20;
+	private static final int DEPTH = 30;
+
+	public static void main(String[] args) {
+		Random random = new Random(1);
+		BoardSize size = BoardSize.of(3, 3);
+		int[] ordered = new int[size.cells];
+		for(int i = 0; i<ordered.length; i++) ordered[i] = i;
+		GameState target = new GameState(size, ordered);
+		// node limits giving a width of 1, 2 and a wide beam
+		long[] limits = {1, 2*(DEPTH+1), 1000*(DEPTH+1)};
+		for(int k = 0; k<BOARDS; k++) {
+			GameState gs = scrambled(target, random);
+			for(long limit:limits) {
+				GameStateNode start = new GameStateNode(gs, target, new TileDistanceHeuristic(false, false));
+				BeamSearch beam = new BeamSearch(start, "beam check", DEPTH, limit);
+				beam.run();
+				check(beam.getSolution(), gs, target, limit);
+			}
+		}
+		System.out.println("Beam search checked on 3x3 boards.");
+	}
+
+	/**
+	 * @param target
+	 * @param random
+	 * @return a configuration a few random moves away from the target.
+	 */
+	private static GameState scrambled(GameState target, Random random) {
+		GameState gs = target.clone();
+		BoardSize size = gs.getSize();
+		for(int m = 0; m<SCRAMBLE; m++) {
+			int[] legal = size.legalMoves(gs.getBlankIndex());
+			gs.slide(size.move(legal[random.nextInt(legal.length)], gs.getBlankIndex()));
+		}
+		return gs;
+	}
+
+	/**
+	 * Follow a solution back to its root, checking every move.
+	 * @param solution, may be null as the beam search may miss a solution.
+	 * @param initial
+	 * @param target
+	 * @param limit, named in the message of a failure.
+	 */
+	private static void check(GameStateNode solution, GameState initial, GameState target, long limit) {
+		if(solution == null) return;
+		if(!solution.getGameState().equals(target)) fail(limit, "the solution does not end at the target");
+		GameStateNode gsn = solution;
+		while(gsn.getParent() != null) {
+			GameState parent = gsn.getParent().getGameState();
+			BoardSize size = parent.getSize();
+			int blank = gsn.getGameState().getBlankIndex();
+			boolean legal = false;
+			for(int move:size.legalMoves(parent.getBlankIndex())) {
+				if(size.move(move, parent.getBlankIndex()) == blank) legal = true;
+			}
+			GameState slid = parent.clone();
+			if(legal) slid.slide(blank);
+			if(!legal || !slid.equals(gsn.getGameState())) fail(limit, "an illegal move");
+			gsn = gsn.getParent();
+		}
+		if(!gsn.getGameState().equals(initial)) fail(limit, "the solution does not start at the initial configuration");
+	}
+
+	/**
+	 * @param limit
+	 * @param step
+	 */
+	private static void fail(long limit, String step) {
+		System.err.println("Search check failed with a node limit of "+limit+": "+step+".");
+		System.exit(1);
+	}
+}
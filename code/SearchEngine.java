@@ -0,0 +1,50 @@
+import java.time.Duration;
+
+/**
+ * An interface for searches attempting to solve a specific 8-puzzle.
+ * Can be ran as a thread, the results are available once run() returns.
+ */
+public interface SearchEngine extends Runnable {
+	/**
+	 * @return a node of the tree identical to the target state, null if no solution was found.
+	 */
+	GameStateNode getSolution();
+	/**
+	 * Get the instances name.
+	 * @return
+	 */
+	String getName();
+	/**
+	 * Get the duration for which the instance ran.
+	 * @return
+	 */
+	Duration getDuration();
+	/**
+	 * Get the proven bound on the length of the solution relative to an optimal one.
+	 * @return 1 for a search finding optimal solutions.
+	 */
+	default double getBound() {
+		return 1;
+	}
+	/**
+	 * Get the counters describing the cost of the search.
+	 * @return SearchStatistics, null if the search does not keep any.
+	 */
+	default SearchStatistics getStatistics() {
+		return null;
+	}
+	/**
+	 * Limit the resources of the search, must be called before run().
+	 * Searches which cannot be stopped ignore the budget.
+	 * @param budget
+	 */
+	default void setBudget(Budget budget) {
+	}
+	/**
+	 * Get the budget the search checks, through which it can be cancelled.
+	 * @return Budget, null if the search cannot be stopped.
+	 */
+	default Budget getBudget() {
+		return null;
+	}
+}
@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event recorded when a search finishes, holding its SearchStatistics.
+ */
+@Name("puzzle.Search")
+@Label("Puzzle Search")
+@Category("Puzzle")
+@Description("Counters of a finished search")
+class SearchEvent extends jdk.jfr.Event {
+	@Label("Name")
+	String name;
+	@Label("Expanded")
+	long expanded;
+	@Label("Generated")
+	long generated;
+	@Label("Duplicates Pruned")
+	long duplicates;
+	@Label("Peak Open List Size")
+	int peakOpen;
+	@Label("Solution Length")
+	int solutionLength;
+	@Label("Effective Branching Factor")
+	double effectiveBranchingFactor;
+	@Label("Nodes per Second")
+	double nodesPerSecond;
+}
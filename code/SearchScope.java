@@ -0,0 +1,187 @@
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs searches in threads of their own and waits for them as a group, in the manner of a structured task scope.
+ * A search which fails with an exception cancels the others through their budgets, and the failure
+ * is thrown by throwIfFailed() once the group has been joined. Closing the scope cancels the searches
+ * which are still running and waits for them, so no search outlives the scope.
+ *
+ * The threads come from a ThreadFactory, platform threads by default. Virtual threads are used
+ * when the Java runtime provides them and they are asked for, they are not preempted however,
+ * so searches running on them only run at the same time as far as there are processors for them.
+ */
+public class SearchScope implements AutoCloseable {
+
+	private ThreadFactory factory;
+	private List<SearchEngine> engines;
+	private int running;
+	private SearchEngine failed;
+	private Throwable failure;
+	private boolean cancelled;
+
+	/**
+	 * Constructor.
+	 * @param factory, creates the thread of every search.
+	 */
+	SearchScope(ThreadFactory factory) {
+		this.factory = factory;
+		engines = new ArrayList<SearchEngine>();
+		running = 0;
+	}
+
+	/**
+	 * @return a factory of platform threads, suited to the searches which keep a processor busy.
+	 */
+	static ThreadFactory platformThreads() {
+		return (Runnable r) -> new Thread(r);
+	}
+
+	/**
+	 * Looked up at run time, as virtual threads are missing from the Java versions the program is built for.
+	 * @return a factory of virtual threads, null if the Java runtime does not provide them.
+	 */
+	static ThreadFactory virtualThreads() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Start a search in a thread of its own.
+	 * @param engine, a search which has not been started.
+	 */
+	void fork(SearchEngine engine) {
+		fork(engine, () -> {});
+	}
+
+	/**
+	 * Start a search in a thread of its own.
+	 * @param engine, a search which has not been started.
+	 * @param then, ran by the thread once the search has stopped, unless the search failed.
+	 * The exception of a thread which could not be started is thrown, after cancelling the other searches.
+	 */
+	void fork(SearchEngine engine, Runnable then) {
+		synchronized(this) {
+			if(cancelled) throw new IllegalStateException("The scope has been shut down.");
+			engines.add(engine);
+			running++;
+		}
+		try {
+			Thread th = factory.newThread(() -> {
+				try {
+					engine.run();
+					then.run();
+				} catch (RuntimeException | Error e) {
+					failed(engine, e);
+				} finally {
+					stopped();
+				}
+			});
+			th.setName(engine.getName());
+			th.start();
+		} catch (RuntimeException | Error e) {
+			// no thread will run the search, e.g. as no more native threads can be created
+			failed(engine, e);
+			stopped();
+			throw e;
+		}
+	}
+
+	/**
+	 * Count a search as stopped and wake the threads joining the scope.
+	 */
+	private synchronized void stopped() {
+		running--;
+		notifyAll();
+	}
+
+	/**
+	 * Record the first failure and cancel the other searches.
+	 * @param engine
+	 * @param e
+	 */
+	private void failed(SearchEngine engine, Throwable e) {
+		synchronized(this) {
+			if(failure != null) return;
+			failed = engine;
+			failure = e;
+		}
+		shutdown();
+	}
+
+	/**
+	 * Wait until every search has stopped.
+	 * @throws InterruptedException
+	 */
+	synchronized void join() throws InterruptedException {
+		while(running > 0) wait();
+	}
+
+	/**
+	 * Wait until every search has stopped or the deadline has passed, after which the searches are cancelled.
+	 * The cancelled searches stop at their next budget check, join() waits for them.
+	 * @param deadline
+	 * @throws InterruptedException
+	 * @throws TimeoutException if the deadline passed first.
+	 */
+	synchronized void joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+		while(running > 0) {
+			long millis = deadline.toEpochMilli() - System.currentTimeMillis();
+			if(millis <= 0) {
+				shutdown();
+				throw new TimeoutException("The searches did not stop by "+deadline+".");
+			}
+			wait(millis);
+		}
+	}
+
+	/**
+	 * Cancel the searches through their budgets, no search can be started afterwards.
+	 */
+	void shutdown() {
+		List<SearchEngine> started;
+		synchronized(this) {
+			cancelled = true;
+			started = new ArrayList<SearchEngine>(engines);
+		}
+		for(SearchEngine engine:started) {
+			if(engine.getBudget() != null) engine.getBudget().cancel();
+		}
+	}
+
+	/**
+	 * @throws ExecutionException with the exception of the first search which failed, if any did.
+	 */
+	synchronized void throwIfFailed() throws ExecutionException {
+		if(failure != null) throw new ExecutionException(failed.getName()+" failed: "+failure, failure);
+	}
+
+	/**
+	 * Cancel the searches which are still running and wait for them.
+	 * An interruption while waiting is kept for the caller.
+	 */
+	public void close() {
+		boolean interrupted = false;
+		synchronized(this) {
+			if(running > 0) shutdown();
+			while(running > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if(interrupted) Thread.currentThread().interrupt();
+	}
+}
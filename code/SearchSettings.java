@@ -0,0 +1,95 @@
+import java.time.Duration;
+
+/**
+ * Settings given on the command line which select and tune the searches.
+ */
+class SearchSettings {
+	/**
+	 * One of astar, idastar, bidirectional, parallel, weighted, anytime, external, sma, beam or oracle.
+	 */
+	final String mode;
+	/**
+	 * Longest solution looked for.
+	 */
+	final int depthLimit;
+	/**
+	 * Number of threads of a parallel search.
+	 */
+	final int workers;
+	/**
+	 * Weight of the heuristic of the weighted and the anytime search, the first one for the anytime search.
+	 */
+	final double weight;
+	/**
+	 * Time after which the anytime search returns its best solution.
+	 */
+	final Duration deadline;
+	/**
+	 * Limits of every search, 0 or null for none.
+	 */
+	final long maxNodes;
+	final long maxBytes;
+	final Duration maxTime;
+	/**
+	 * Memory the external search sorts its buckets in.
+	 */
+	final long externalMemory;
+	/**
+	 * Nodes kept in memory by the SMA* and the beam search.
+	 */
+	final long nodeLimit;
+
+	/**
+	 * Constructor.
+	 * @param mode
+	 * @param depthLimit
+	 * @param workers
+	 * @param weight
+	 * @param deadline
+	 */
+	SearchSettings(String mode, int depthLimit, int workers, double weight, Duration deadline) {
+		this(mode, depthLimit, workers, weight, deadline, 0, 0, null, ExternalSearch.DEFAULT_MEMORY, SMAStar.DEFAULT_NODES);
+	}
+	/**
+	 * Constructor.
+	 * @param mode
+	 * @param depthLimit
+	 * @param workers
+	 * @param weight
+	 * @param deadline
+	 * @param maxNodes, nodes every search may expand, 0 for no limit.
+	 * @param maxBytes, estimated memory every search may use, 0 for no limit.
+	 * @param maxTime, time every search may run, null for no limit.
+	 * @param externalMemory, bytes the external search sorts its buckets in.
+	 * @param nodeLimit, nodes kept in memory by the SMA* and the beam search.
+	 */
+	SearchSettings(String mode, int depthLimit, int workers, double weight, Duration deadline,
+			long maxNodes, long maxBytes, Duration maxTime, long externalMemory, long nodeLimit) {
+		this.mode = mode;
+		this.depthLimit = depthLimit;
+		this.workers = workers;
+		this.weight = weight;
+		this.deadline = deadline;
+		this.maxNodes = maxNodes;
+		this.maxBytes = maxBytes;
+		this.maxTime = maxTime;
+		this.externalMemory = externalMemory;
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * @param mode
+	 * @param workers
+	 * @return a copy of the settings with another mode and number of threads.
+	 */
+	SearchSettings with(String mode, int workers) {
+		return new SearchSettings(mode, depthLimit, workers, weight, deadline, maxNodes, maxBytes, maxTime, externalMemory, nodeLimit);
+	}
+
+	/**
+	 * @return a new budget with the limits, for a single search.
+	 */
+	Budget budget() {
+		return new Budget(maxNodes, maxBytes, maxTime);
+	}
+}
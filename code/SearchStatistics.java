@@ -0,0 +1,263 @@
+import java.util.Arrays;
+
+/**
+ * Counters describing the cost of a single search.
+ * They are updated by the thread running the search, without synchronisation,
+ * so the values read by other threads while the search runs, e.g. by a SamplingReporter, may lag behind.
+ *
+ * The time is split into f-layers, a layer starting with the first expanded node whose whole part of f
+ * is higher than any before. Where f does not rise monotonically, as in the weighted, anytime, SMA* and
+ * beam searches or with Euclidean distances, a node with a lower f is counted in the current layer,
+ * so the layers are only opened and closed a few times in a search.
+ * The layers and the whole search are also recorded as JDK Flight Recorder events.
+ */
+public class SearchStatistics {
+
+	private String name;
+
+	private long expanded;
+	private long generated;
+	private long duplicates;
+	private int peakOpen;
+	private int solutionLength;
+
+	private long startNanos;
+	private long endNanos;
+
+	// the current f-layer, volatile so that a reporter sees the end of the search
+	private volatile int layer;
+	private long layerStartNanos;
+	private long layerExpanded;
+	private LayerEvent layerEvent;
+
+	/**
+	 * layerNanos[f] is the time spent expanding nodes of the f-layer.
+	 */
+	private long[] layerNanos;
+
+	/**
+	 * Constructor.
+	 * @param name, name of the search.
+	 */
+	SearchStatistics(String name) {
+		this.name = name;
+		solutionLength = -1;
+		layer = -1;
+		layerNanos = new long[32];
+	}
+
+	/**
+	 * Start the clock.
+	 */
+	void start() {
+		startNanos = System.nanoTime();
+		endNanos = 0;
+	}
+
+	/**
+	 * Count an expanded node.
+	 * @param f, the estimated length of a solution through the node.
+	 */
+	void expanded(double f) {
+		expanded++;
+		int l = (int) f;
+		if(l > layer) startLayer(l);
+		layerExpanded++;
+	}
+
+	/**
+	 * Count generated children.
+	 * @param n, number of the children.
+	 */
+	void generated(int n) {
+		generated += n;
+	}
+
+	/**
+	 * Count a node dropped because its configuration was already reached by a path as short.
+	 */
+	void duplicate() {
+		duplicates++;
+	}
+
+	/**
+	 * Record the size of the open list.
+	 * @param size
+	 */
+	void open(int size) {
+		if(size > peakOpen) peakOpen = size;
+	}
+
+	/**
+	 * Stop the clock.
+	 * @param solutionLength, -1 if no solution was found.
+	 */
+	void finish(int solutionLength) {
+		endNanos = System.nanoTime();
+		endLayer(endNanos);
+		layer = -1;
+		this.solutionLength = solutionLength;
+
+		SearchEvent event = new SearchEvent();
+		if(event.shouldCommit()) {
+			event.name = name;
+			event.expanded = expanded;
+			event.generated = generated;
+			event.duplicates = duplicates;
+			event.peakOpen = peakOpen;
+			event.solutionLength = solutionLength;
+			event.effectiveBranchingFactor = getEffectiveBranchingFactor();
+			event.nodesPerSecond = getNodesPerSecond();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Close the current f-layer and open the next one.
+	 * @param l, the next f-layer.
+	 */
+	private void startLayer(int l) {
+		long now = System.nanoTime();
+		endLayer(now);
+		layer = l;
+		layerStartNanos = now;
+		layerExpanded = 0;
+		layerEvent = new LayerEvent();
+		layerEvent.begin();
+	}
+
+	/**
+	 * Close the current f-layer.
+	 * @param now, System.nanoTime()
+	 */
+	private void endLayer(long now) {
+		if(layer < 0) return;
+		if(layer >= layerNanos.length) {
+			layerNanos = Arrays.copyOf(layerNanos, Math.max(layer+1, 2*layerNanos.length));
+		}
+		layerNanos[layer] += now-layerStartNanos;
+		if(layerEvent.shouldCommit()) {
+			layerEvent.name = name;
+			layerEvent.f = layer;
+			layerEvent.expanded = layerExpanded;
+			layerEvent.commit();
+		}
+		layerEvent = null;
+	}
+
+	/**
+	 * @return the name of the search.
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return number of the nodes whose children were generated.
+	 */
+	public long getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return number of the children generated.
+	 */
+	public long getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return number of the nodes dropped as their configurations were already reached by a path as short.
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return the largest number of nodes held by the open list at once.
+	 */
+	public int getPeakOpen() {
+		return peakOpen;
+	}
+
+	/**
+	 * @return the f-layer being expanded, -1 if the search is not running.
+	 */
+	public int getLayer() {
+		return layer;
+	}
+
+	/**
+	 * @param f
+	 * @return nanoseconds spent expanding nodes of the f-layer.
+	 */
+	public long getLayerNanos(int f) {
+		return f >= 0 && f < layerNanos.length ? layerNanos[f] : 0;
+	}
+
+	/**
+	 * @return the highest f-layer reached, -1 if none was.
+	 */
+	public int getLastLayer() {
+		for(int f = layerNanos.length-1; f >= 0; f--) {
+			if(layerNanos[f] != 0) return f;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return nanoseconds since the start, until the end once the search finished.
+	 */
+	public long getElapsedNanos() {
+		return (endNanos != 0 ? endNanos : System.nanoTime())-startNanos;
+	}
+
+	/**
+	 * @return nodes expanded per second.
+	 */
+	public double getNodesPerSecond() {
+		long nanos = getElapsedNanos();
+		return nanos == 0 ? 0 : expanded*1e9/nanos;
+	}
+
+	/**
+	 * Effective branching factor b of a uniform tree as deep as the solution holding as many nodes as generated,
+	 * N+1 = 1+b+b^2+...+b^d.
+	 * @return b, NaN if no solution was found.
+	 */
+	public double getEffectiveBranchingFactor() {
+		int d = solutionLength;
+		if(d <= 0) return Double.NaN;
+		double n = generated+1;
+		double low = 0;
+		double high = Math.max(1, n);
+		for(int i = 0; i<100; i++) {
+			double b = (low+high)/2;
+			double nodes = 1;
+			double power = 1;
+			for(int k = 1; k<=d && nodes <= n+1; k++) {
+				power *= b;
+				nodes += power;
+			}
+			if(nodes < n+1) low = b;
+			else high = b;
+		}
+		return (low+high)/2;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Expanded: ").append(expanded).append("\n");
+		sb.append("Generated: ").append(generated).append("\n");
+		sb.append("Duplicates pruned: ").append(duplicates).append("\n");
+		sb.append("Peak open list size: ").append(peakOpen).append("\n");
+		sb.append("Effective branching factor: ").append(String.format("%.3f", getEffectiveBranchingFactor())).append("\n");
+		sb.append("Nodes per second: ").append(String.format("%.0f", getNodesPerSecond())).append("\n");
+		sb.append("Time per f-layer:");
+		for(int f = 0; f<=getLastLayer(); f++) {
+			if(layerNanos[f] == 0) continue;
+			sb.append("\n\t").append(f).append(": ").append(layerNanos[f]/1_000_000.0).append(" ms");
+		}
+		return sb.toString();
+	}
+}
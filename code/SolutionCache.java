@@ -0,0 +1,321 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Cache of optimal solutions, keyed by the initial and the target configuration.
+ *
+ * Every part of an optimal path leading to the target is an optimal path itself, so a stored solution
+ * answers the puzzles starting from any configuration along it. Every configuration of a stored path
+ * therefore gets an entry pointing into the path. The number of entries is bounded, the least recently
+ * used ones are evicted first.
+ *
+ * The paths are appended to a file as they are stored and read back when the cache is created,
+ * so that the cache survives restarts. A record holds the size of the board, both packed configurations
+ * and the moves of the blank tile, 2 bits each. A record cut short by a crash is dropped from the file.
+ * The paths of evicted entries stay in the file until it is compacted: once it has grown to twice the
+ * size of the paths still in use, and when the cache is closed, the file is rewritten with those paths
+ * only, the least recently used first, so the file stays bounded along with the entries.
+ * The methods are synchronized, the cache may be shared by searches running at the same time.
+ */
+public class SolutionCache {
+
+	/**
+	 * A configuration with a target.
+	 */
+	private static class Key {
+		final BoardSize size;
+		final long packed;
+		final long packedHigh;
+		final long target;
+		final long targetHigh;
+
+		Key(GameState gs, GameState target) {
+			this.size = gs.getSize();
+			this.packed = gs.getPacked();
+			this.packedHigh = gs.getPackedHigh();
+			this.target = target.getPacked();
+			this.targetHigh = target.getPackedHigh();
+		}
+
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key)) return false;
+			Key o = (Key) obj;
+			return packed == o.packed && packedHigh == o.packedHigh && target == o.target && targetHigh == o.targetHigh && size == o.size;
+		}
+
+		public int hashCode() {
+			long h = packed * 0x9E3779B97F4A7C15L;
+			h = (h ^ packedHigh) * 0xC2B2AE3D27D4EB4FL;
+			h = (h ^ target) * 0x9E3779B97F4A7C15L;
+			h = (h ^ targetHigh) * 0xC2B2AE3D27D4EB4FL;
+			return Long.hashCode(h ^ (h >>> 29));
+		}
+	}
+
+	/**
+	 * An optimal path, shared by the entries of its configurations.
+	 */
+	private static class Path {
+		final GameState start;
+		final GameState target;
+		// directions of the moves of the blank tile, as in BoardSize
+		final byte[] moves;
+
+		Path(GameState start, GameState target, byte[] moves) {
+			this.start = start;
+			this.target = target;
+			this.moves = moves;
+		}
+	}
+
+	/**
+	 * Position of a configuration on a path.
+	 */
+	private static class Entry {
+		final Path path;
+		final int offset;
+
+		Entry(Path path, int offset) {
+			this.path = path;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Number of configurations kept by default, a few hundred bytes each.
+	 */
+	static final int DEFAULT_CAPACITY = 1_000_000;
+
+	/**
+	 * Bytes appended between two checks whether the file should be compacted.
+	 */
+	private static final long COMPACT_INTERVAL = 1<<20;
+
+	private LinkedHashMap<Key, Entry> entries;
+	private File file;
+	private DataOutputStream out;
+	// bytes of the file, and the size at which it is checked next
+	private long written;
+	private long nextCheck;
+
+	/**
+	 * Constructor.
+	 * Reads the paths stored in the file, the file is created if it does not exist.
+	 * @param file, the append-only store, null to keep the cache in memory only.
+	 * @param capacity, largest number of configurations with an entry.
+	 */
+	SolutionCache(File file, int capacity) {
+		this.file = file;
+		entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+		if(file == null) return;
+		load();
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (IOException e) {
+			System.out.println("Couldn't open the solution cache "+file.getName()+" for writing, keeping it in memory.");
+		}
+		compact(false);
+	}
+
+	/**
+	 * Read the paths stored in the file, dropping a record cut short.
+	 */
+	private void load() {
+		if(!file.isFile()) return;
+		long valid = 0;
+		written = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while(true) {
+				Path path = read(in);
+				if(path == null) break;
+				index(path);
+				valid += Moves.recordSize(path.moves.length);
+			}
+		} catch (EOFException e) {
+			// a record cut short
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Couldn't read the whole solution cache "+file.getName()+".");
+		}
+		if(valid < file.length()) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(valid);
+			} catch (IOException e) {
+				System.out.println("Couldn't drop the broken end of the solution cache "+file.getName()+".");
+			}
+		}
+		written = valid;
+	}
+
+	/**
+	 * Rewrite the file with the paths which still have an entry, in the order of their last use.
+	 * @param always, false to compact only when the file is at least twice the size of those paths.
+	 */
+	private void compact(boolean always) {
+		if(out == null) return;
+		LinkedHashSet<Path> live = new LinkedHashSet<Path>();
+		for(Entry e:entries.values()) {
+			// the entries are ordered from the least recently used, a path moves to its latest use
+			live.remove(e.path);
+			live.add(e.path);
+		}
+		long bytes = 0;
+		for(Path path:live) bytes += Moves.recordSize(path.moves.length);
+		nextCheck = Math.max(2*bytes, written) + COMPACT_INTERVAL;
+		if(written == bytes || !always && written < 2*bytes) return;
+
+		File tmp = new File(file.getPath()+".tmp");
+		try {
+			out.close();
+			try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				for(Path path:live) compacted.write(Moves.record(path.start, path.target, path.moves));
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			written = bytes;
+			nextCheck = 2*bytes + COMPACT_INTERVAL;
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		} catch (IOException e) {
+			System.out.println("Couldn't compact the solution cache "+file.getName()+", keeping it in memory.");
+			tmp.delete();
+			out = null;
+		}
+	}
+
+	/**
+	 * Read a record.
+	 * @param in
+	 * @return the path, null at the end of the file.
+	 * @throws IOException
+	 */
+	private static Path read(DataInputStream in) throws IOException {
+		int width = in.read();
+		if(width < 0) return null;
+		BoardSize size = BoardSize.of(width, in.readUnsignedByte());
+		GameState start = unpack(size, in.readLong(), in.readLong());
+		GameState target = unpack(size, in.readLong(), in.readLong());
+		int length = in.readUnsignedShort();
+		byte[] packed = new byte[(length+3)/4];
+		in.readFully(packed);
+		return new Path(start, target, Moves.unpack(packed, length));
+	}
+
+	/**
+	 * Append a record.
+	 * @param path
+	 * @throws IOException
+	 */
+	private void write(Path path) throws IOException {
+		byte[] record = Moves.record(path.start, path.target, path.moves);
+		out.write(record);
+		out.flush();
+		written += record.length;
+	}
+
+	/**
+	 * @param size
+	 * @param packed
+	 * @param packedHigh
+	 * @return the configuration, with the blank tile found.
+	 */
+	private static GameState unpack(BoardSize size, long packed, long packedHigh) {
+		GameState gs = new GameState(size, packed, packedHigh, 0);
+		gs.set(packed, packedHigh, gs.getTileIndex(0));
+		return gs;
+	}
+
+	/**
+	 * Add an entry for every configuration of a path.
+	 * @param path
+	 */
+	private void index(Path path) {
+		GameState gs = path.start.clone();
+		BoardSize size = gs.getSize();
+		for(int i = 0; i<=path.moves.length; i++) {
+			Key key = new Key(gs, path.target);
+			Entry old = entries.get(key);
+			// a path through the configuration is optimal, so any of them will do
+			if(old == null) entries.put(key, new Entry(path, i));
+			if(i < path.moves.length) gs.slide(size.move(path.moves[i], gs.getBlankIndex()));
+		}
+	}
+
+	/**
+	 * Find a stored solution.
+	 * @param gs, the initial configuration.
+	 * @param target
+	 * @param heuristic, given to the nodes of the solution, may be null.
+	 * @return a node identical to the target, null if no path from the configuration is stored.
+	 */
+	synchronized GameStateNode lookup(GameState gs, GameState target, HeuristicMethod heuristic) {
+		Entry e = entries.get(new Key(gs, target));
+		if(e == null) return null;
+		GameState current = gs.clone();
+		BoardSize size = current.getSize();
+		GameStateNode node = heuristic == null ? new GameStateNode(current, target) : new GameStateNode(current, target, heuristic);
+		for(int i = e.offset; i<e.path.moves.length; i++) {
+			current = current.clone();
+			current.slide(size.move(e.path.moves[i], current.getBlankIndex()));
+			node = new GameStateNode(node, current, node.getHeuristic());
+		}
+		return node;
+	}
+
+	/**
+	 * Store an optimal solution.
+	 * @param solution, a node identical to the target, followed back to the root through its parents.
+	 */
+	synchronized void store(GameStateNode solution) {
+		GameState target = solution.getGameState();
+		GameState start = Moves.start(solution);
+		if(entries.containsKey(new Key(start, target))) return;
+		Path path = new Path(start.clone(), target.clone(), Moves.of(solution));
+		index(path);
+		if(out == null) return;
+		try {
+			write(path);
+		} catch (IOException e) {
+			System.out.println("Couldn't append to the solution cache "+file.getName()+", keeping it in memory.");
+			out = null;
+		}
+		if(written >= nextCheck) compact(false);
+	}
+
+	/**
+	 * @return number of the configurations with an entry.
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Compact and close the file.
+	 */
+	synchronized void close() {
+		compact(true);
+		if(out == null) return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			System.out.println("Couldn't close the solution cache "+file.getName()+".");
+		}
+		out = null;
+	}
+}
@@ -0,0 +1,361 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the program running as a server solving the puzzles sent to a local socket,
+ * so that a puzzle costs neither the start of the JVM nor the warm-up of the JIT compiler.
+ *
+ * Listens on a TCP port of the loopback interface, or on a Unix domain socket when given a path.
+ * A request is a line "<id> <initial state> [<target state>] [<option>=<value> ...]", the states written
+ * as for the -s tag and the options overriding the settings of the command line for the request:
+ * h (heuristic number), m (mode), d (depth limit), e (weight), l (deadline), n (nodes), a (megabytes), u (seconds), x (nodes kept).
+ * A client may send many requests without waiting, they are solved by a pool of workers and every response
+ * is written as soon as it is ready: "<id> <length of the solution> <duration in microseconds> <moves>",
+ * with the same forms as in BatchSolver for puzzles which are invalid, rejected, stopped or have no solution.
+ * The line "quit" closes the connection once its responses are written.
+ * Every connection is read on a thread of its own, a virtual thread where the Java runtime has them,
+ * while the searches, which keep a processor busy, run on the platform threads of the pool.
+ *
+ * A heuristic is prepared once for every heuristic number and target and kept for later requests,
+ * the least recently used ones being dropped beyond CACHED_HEURISTICS. The heuristics only read their
+ * tables once prepared, so the workers share them. The table of exact distances used by the oracle mode
+ * is kept in the same way for every target.
+ */
+public class SolverDaemon {
+
+	/**
+	 * Number of prepared heuristics kept.
+	 */
+	private static final int CACHED_HEURISTICS = 256;
+
+	/**
+	 * Number of random 3x3 puzzles solved before listening, so that the hot code is compiled.
+	 */
+	private static final int WARM_UP_PUZZLES = 500;
+
+	/**
+	 * A connection and the number of its requests still being solved.
+	 * The responses are written to the channel directly, a stream over the channel would wait for the
+	 * thread reading the requests.
+	 */
+	private static class Connection {
+		final SocketChannel channel;
+		int pending;
+		boolean broken;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	private SearchSettings settings;
+	private int heuristics;
+	private int width;
+	private SolutionCache cache;
+	private ForkJoinPool pool;
+
+	private ConcurrentHashMap<Integer, Approach> approaches;
+	private LinkedHashMap<String, HeuristicMethod> prepared;
+
+	/**
+	 * Constructor.
+	 * @param settings, default settings of the requests, the number of threads being the number of workers.
+	 * @param heuristics, default heuristic number, the last of the selected approaches is used.
+	 * @param width, number of columns, 0 for square boards.
+	 * @param cache, shared by the workers, null to solve every puzzle.
+	 */
+	SolverDaemon(SearchSettings settings, int heuristics, int width, SolutionCache cache){
+		this.settings = settings.mode.equals("parallel") ? settings.with("astar", settings.workers) : settings;
+		this.heuristics = heuristics;
+		this.width = width;
+		this.cache = cache;
+		approaches = new ConcurrentHashMap<Integer, Approach>();
+		prepared = new LinkedHashMap<String, HeuristicMethod>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, HeuristicMethod> eldest) {
+				return size() > CACHED_HEURISTICS;
+			}
+		};
+	}
+
+	/**
+	 * Warm up and serve the clients until the program is stopped.
+	 * @param address, a port number for TCP on the loopback interface, otherwise the path of a Unix domain socket.
+	 */
+	void serve(String address) {
+		Progress.setEnabled(false);
+		pool = new ForkJoinPool(settings.workers);
+		ServerSocketChannel server = null;
+		try {
+			SocketAddress bound;
+			if(address.matches("\\d+")) {
+				server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+				bound = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+			} else {
+				server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+				Path path = Paths.get(address);
+				bound = UnixDomainSocketAddress.of(path);
+				path.toFile().deleteOnExit();
+			}
+			warmUp();
+			server.bind(bound);
+			System.out.println("Listening on "+address+".");
+			// a connection mostly waits for its client, so it gets a virtual thread where the runtime has them
+			ThreadFactory clients = SearchScope.virtualThreads();
+			if(clients == null) clients = (Runnable r) -> {
+				Thread th = new Thread(r);
+				th.setDaemon(true);
+				return th;
+			};
+			while(true) {
+				SocketChannel client = server.accept();
+				Thread th = clients.newThread(() -> handle(client));
+				th.setName("client");
+				th.start();
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Couldn't listen on "+address+": "+e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Solve random puzzles, compiling the search and preparing the default heuristic, or the table of the oracle, for the ordered target.
+	 */
+	private void warmUp() {
+		BoardSize size = BoardSize.of(3, 3);
+		int[] ordered = new int[size.cells];
+		for(int i = 0; i<ordered.length; i++) ordered[i] = i;
+		Random random = new Random(1);
+		for(int k = 0; k<WARM_UP_PUZZLES; k++) {
+			GameState gs = new GameState(size, ordered);
+			for(int i = 0; i<20; i++) {
+				int[] legal = size.legalMoves(gs.getBlankIndex());
+				gs.slide(size.move(legal[random.nextInt(legal.length)], gs.getBlankIndex()));
+			}
+			String request = k+" "+MainBody.formatState(gs)+" d=20";
+			pool.execute(() -> solve(request));
+		}
+		pool.awaitQuiescence(1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Read the requests of a client and queue them, on a thread of the connection.
+	 * @param client
+	 */
+	private void handle(SocketChannel client) {
+		try (SocketChannel channel = client;
+				BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+			Connection c = new Connection(channel);
+			String line;
+			while((line = in.readLine()) != null) {
+				if(line.trim().isEmpty()) continue;
+				if(line.trim().equals("quit")) break;
+				final String request = line;
+				synchronized(c) {
+					if(c.broken) break;
+					c.pending++;
+				}
+				pool.execute(() -> {
+					String response = request.trim().split("\\s+")[0]+" failed";
+					try {
+						response = solve(request);
+					} finally {
+						respond(c, response);
+					}
+				});
+			}
+			// the responses still being solved are written before closing
+			synchronized(c) {
+				while(c.pending > 0) c.wait();
+			}
+		} catch (IOException e) {
+			// the client went away
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Write a response at once, the lock of the connection keeps the lines of its workers apart.
+	 * @param c
+	 * @param response
+	 */
+	private void respond(Connection c, String response) {
+		ByteBuffer bytes = StandardCharsets.UTF_8.encode(response+"\n");
+		synchronized(c) {
+			try {
+				if(!c.broken) {
+					while(bytes.hasRemaining()) c.channel.write(bytes);
+				}
+			} catch (IOException e) {
+				c.broken = true;
+			}
+			c.pending--;
+			c.notifyAll();
+		}
+	}
+
+	/**
+	 * Solve the puzzle of a request.
+	 * @param request
+	 * @return the response line.
+	 */
+	String solve(String request) {
+		long startTime = System.nanoTime();
+		// the states may also be separated by a semicolon, as in a batch file
+		String[] parts = request.trim().replace(';', ' ').split("\\s+");
+		String id = parts[0];
+		GameState initialGS = null;
+		GameState target = null;
+		int bits = heuristics;
+		String mode = settings.mode;
+		int depthLimit = settings.depthLimit;
+		double weight = settings.weight;
+		Duration deadline = settings.deadline;
+		long maxNodes = settings.maxNodes;
+		long maxBytes = settings.maxBytes;
+		Duration maxTime = settings.maxTime;
+		long nodeLimit = settings.nodeLimit;
+		try {
+			for(int i = 1; i<parts.length; i++) {
+				int eq = parts[i].indexOf('=');
+				if(eq < 0) {
+					GameState gs = MainBody.parseState(parts[i], width);
+					if(gs == null || target != null) return id+" invalid";
+					if(initialGS == null) initialGS = gs;
+					else target = gs;
+					continue;
+				}
+				String value = parts[i].substring(eq+1);
+				switch(parts[i].substring(0, eq)) {
+				case "h": bits = Integer.parseInt(value); break;
+				case "m":
+					if(!MainBody.isMode(value)) return id+" invalid";
+					mode = value.equals("parallel") ? "astar" : value;
+					break;
+				case "d": depthLimit = Integer.parseInt(value); break;
+				case "e": weight = Math.max(1, Double.parseDouble(value)); break;
+				case "l": deadline = Duration.ofMillis(Math.round(Double.parseDouble(value)*1000)); break;
+				case "n": maxNodes = Long.parseLong(value); break;
+				case "a": maxBytes = Math.round(Double.parseDouble(value)*1_000_000); break;
+				case "u": maxTime = Duration.ofMillis(Math.round(Double.parseDouble(value)*1000)); break;
+				case "x": nodeLimit = Long.parseLong(value); break;
+				default: return id+" invalid";
+				}
+			}
+		} catch(NumberFormatException e) {
+			return id+" invalid";
+		}
+		if(initialGS == null) return id+" invalid";
+		if(target == null) {
+			int[] ordered = new int[initialGS.getSize().cells];
+			for(int i = 0; i<ordered.length; i++) ordered[i] = i;
+			target = new GameState(initialGS.getSize(), ordered);
+		}
+		if(target.getSize() != initialGS.getSize()) return id+" invalid";
+		Rejection rejection = Rejection.check(initialGS, target, depthLimit);
+		if(rejection != null) return id+" rejected "+rejection.code();
+		Approach appr = mode.equals("oracle") ? null : approaches.computeIfAbsent(bits, b -> {
+			LinkedList<Approach> selected = MainBody.approaches(b);
+			return selected.isEmpty() ? null : selected.getLast();
+		});
+		boolean threeByThree = initialGS.getSize() == BoardSize.of(3,3);
+		if(!mode.equals("oracle") && appr == null || (mode.equals("oracle") || (bits & 64) != 0) && !threeByThree) {
+			return id+" invalid";
+		}
+		SearchSettings requested = new SearchSettings(mode, depthLimit, 1, weight, deadline, maxNodes, maxBytes, maxTime, settings.externalMemory, nodeLimit);
+
+		SearchEngine engine;
+		GameStateNode start;
+		if(appr == null) {
+			start = new GameStateNode(initialGS, target);
+			engine = new OracleSolver(start, "Exact distance oracle", depthLimit, oracle(target));
+			engine.setBudget(requested.budget());
+		} else if(mode.equals("bidirectional")) {
+			start = new GameStateNode(initialGS, target, heuristic(bits, appr, target));
+			// the backward heuristic is prepared for the initial state, which is seldom asked for again
+			HeuristicMethod backward = appr.backward.get();
+			backward.compare(initialGS, initialGS);
+			engine = new BidirectionalSearch(start, backward, appr.name, depthLimit);
+			engine.setBudget(requested.budget());
+		} else {
+			start = new GameStateNode(initialGS, target, heuristic(bits, appr, target));
+			engine = MainBody.createEngine(requested, start, appr);
+		}
+		if(cache != null) engine = new CachedSearch(engine, start, depthLimit, cache);
+		engine.run();
+
+		long micros = (System.nanoTime()-startTime)/1000;
+		GameStateNode solution = engine.getSolution();
+		Budget budget = engine.getBudget();
+		if(solution == null && budget != null && budget.getStopReason() != null) return id+" stopped "+budget.getStopReason();
+		if(solution == null) return id+" -1 "+micros;
+		return id+" "+solution.getSteps()+" "+micros+" "+Moves.toText(Moves.of(solution));
+	}
+
+	/**
+	 * Get the heuristic of an approach prepared for a target, preparing it on the first request.
+	 * @param bits, the heuristic number of the approach.
+	 * @param appr
+	 * @param target
+	 * @return HeuristicMethod
+	 */
+	private HeuristicMethod heuristic(int bits, Approach appr, GameState target) {
+		return prepare(bits+" "+target.getSize()+" "+target.getPacked()+" "+target.getPackedHigh(), appr.hm, target);
+	}
+
+	/**
+	 * Get the table of exact distances to a target, kept with the prepared heuristics.
+	 * @param target
+	 * @return DistanceOracle
+	 */
+	private DistanceOracle oracle(GameState target) {
+		OracleHeuristic hm = (OracleHeuristic) prepare("oracle "+target.getPacked(), OracleHeuristic::new, target);
+		return hm.getOracle(target);
+	}
+
+	/**
+	 * Get a prepared heuristic, preparing it on the first request.
+	 * @param key, the heuristic and the target it is prepared for.
+	 * @param heuristic, creates the heuristic.
+	 * @param target
+	 * @return HeuristicMethod
+	 */
+	private HeuristicMethod prepare(String key, Supplier<HeuristicMethod> heuristic, GameState target) {
+		HeuristicMethod hm;
+		synchronized(prepared) {
+			hm = prepared.get(key);
+			if(hm != null) return hm;
+			hm = heuristic.get();
+			prepared.put(key, hm);
+		}
+		// the tables are built outside of the lock, a heuristic prepares them once
+		hm.compare(target, target);
+		return hm;
+	}
+}
@@ -0,0 +1,26 @@
+/**
+ * Buffer provided by the caller of GameState.successors(), receiving the configurations one move away.
+ * A search reuses a single buffer for all its expansions, so generating the successors allocates nothing.
+ */
+class Successors {
+	/**
+	 * The low words of the packed configurations.
+	 */
+	final long[] packed = new long[4];
+	/**
+	 * The high words of the packed configurations.
+	 */
+	final long[] packedHigh = new long[4];
+	/**
+	 * Cells of the blank tile.
+	 */
+	final int[] blank = new int[4];
+	/**
+	 * Directions of the moves of the blank tile.
+	 */
+	final int[] move = new int[4];
+	/**
+	 * Number of the configurations in the buffer.
+	 */
+	int count;
+}
@@ -0,0 +1,68 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Helper class for storing precomputed heuristic tables in files.
+ * The tables are memory-mapped when loaded, so processes using the same file share its pages.
+ */
+class TableFile {
+
+	/**
+	 * Memory-map a table saved in a file.
+	 * @param file
+	 * @param size, expected size of the table in bytes.
+	 * @return the table, null if the file does not exist, does not have the expected size or cannot be mapped.
+	 */
+	static ByteBuffer load(File file, int size) {
+		if(!file.isFile() || file.length() != size) return null;
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} catch (IOException e) {
+			System.out.println("Couldn't map the table "+file.getName()+".");
+			return null;
+		}
+	}
+
+	/**
+	 * Save a table to a file.
+	 * The table is written to a temporary file first, so a partially written table is never loaded.
+	 * @param file
+	 * @param table
+	 */
+	static void save(File file, byte[] table) {
+		File tmp = new File(file.getPath()+".tmp");
+		try {
+			if(file.getParentFile() != null) file.getParentFile().mkdirs();
+			try (FileOutputStream out = new FileOutputStream(tmp)) {
+				out.write(table);
+			}
+			if(!tmp.renameTo(file)) tmp.delete();
+		} catch (IOException e) {
+			System.out.println("Couldn't save the table "+file.getName()+", keeping it in memory.");
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Load a table from a file, or build it and save it if there is none.
+	 * @param file
+	 * @param size, size of the table in bytes.
+	 * @param builder, computes the table.
+	 * @return the table, held in memory if it could not be saved.
+	 */
+	static ByteBuffer loadOrBuild(File file, int size, Supplier<byte[]> builder) {
+		ByteBuffer table = load(file, size);
+		if(table == null) {
+			byte[] built = builder.get();
+			save(file, built);
+			table = load(file, size);
+			if(table == null) table = ByteBuffer.wrap(built);
+		}
+		return table;
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Heuristic summing the distances of tiles from their cells in the target.
+ * The distance of every tile from every cell is computed once per target,
+ * so evaluating the heuristic only reads a table and updating it after a move reads two entries.
+ */
+public class TileDistanceHeuristic implements IncrementalHeuristic {
+
+	private boolean euclidean;
+	private boolean blankOnly;
+	private volatile GameState lastTarget;
+	private double[] table;
+	private int cells;
+
+	/**
+	 * Constructor.
+	 * @param euclidean, true to use the Euclidean distance, false to use the Manhattan distance.
+	 * @param blankOnly, true to measure the blank tile only, false to measure all the other tiles.
+	 */
+	TileDistanceHeuristic(boolean euclidean, boolean blankOnly){
+		this.euclidean = euclidean;
+		this.blankOnly = blankOnly;
+	}
+
+	public double compare(GameState gs, GameState target) {
+		if(!target.equals(lastTarget)) load(target);
+		if(blankOnly) return table[gs.getBlankIndex()];
+		double d = 0;
+		for(int i = 0; i<cells; i++) {
+			d += table[gs.tileAt(i)*cells+i];
+		}
+		return d;
+	}
+
+	public double update(double parentValue, int tile, int from, int to, GameState target) {
+		if(!target.equals(lastTarget)) load(target);
+		if(blankOnly) return table[from];
+		return parentValue - table[tile*cells+from] + table[tile*cells+to];
+	}
+
+	/**
+	 * Compute the distances for a target.
+	 * table[t*cells+i] holds the distance of tile t in cell i from its cell in the target,
+	 * it is 0 for the blank tile unless only the blank tile is measured.
+	 * @param target
+	 */
+	private synchronized void load(GameState target) {
+		if(target.equals(lastTarget)) return;
+		BoardSize size = target.getSize();
+		double[] computed = new double[size.cells*size.cells];
+		for(int t = 0; t<size.cells; t++) {
+			if(t == 0 && !blankOnly) continue;
+			Location goal = target.getTileLocation(t);
+			for(int i = 0; i<size.cells; i++) {
+				Location l = new Location(size.x(i), size.y(i));
+				computed[t*size.cells+i] = euclidean ? l.Euclid(goal) : l.Manhattan(goal);
+			}
+		}
+		table = computed;
+		cells = size.cells;
+		lastTarget = target;
+	}
+}